@@ -5,7 +5,10 @@ import com.github.loadpager.R
 import com.github.pageloadlib.config.FragmentGlobalConfig
 import com.github.pageloadlib.config.LayoutManagerType
 import com.github.pageloadlib.fragment.BaseRefreshLoadListFragment
+import com.github.pageloadlib.loadmore.ItemDiffCallback
 import com.github.pageloadlib.net.ApiResponse
+import com.github.pageloadlib.net.NetworkException
+import com.github.pageloadlib.net.NetworkExceptionHandler
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.flow
@@ -33,7 +36,18 @@ class SampleListFragment : BaseRefreshLoadListFragment<WanAndroidResponse>() {
         config.backToTopWhenShowItemCount = 10 // 滚动超过10个项目就显示返回顶部按钮
         config.backToTopDrawableRes = R.drawable.ic_back_to_top_background // 设置返回顶部按钮图标
         config.minCountToShowLoadFinishView = 20
+        config.appendOnLoadMore = true
+        config.autoRetryCount = 3
+        config.useStableIds = true
+        config.pageCacheIdentity = "wanandroid_article_list"
+        config.pageCacheType = WanAndroidResponse::class.java
+        config.refreshDiffCallback = object : ItemDiffCallback {
+            override fun getItemKey(item: Any): Any? = (item as? Article)?.id
+        }
         config.debug = true
+        // 数据处理方法默认在Dispatchers.Default上执行，下面的实现只读取参数，不访问视图和共享状态，
+        // 依赖主线程的实现可以改为Dispatchers.Main.immediate
+        config.responseDispatcher = Dispatchers.Default
         return config
     }
 
@@ -71,25 +85,27 @@ class SampleListFragment : BaseRefreshLoadListFragment<WanAndroidResponse>() {
                         if (wanAndroidResponse.errorCode == 0) {
                             emit(ApiResponse.Success(wanAndroidResponse))
                         } else {
-                            emit(ApiResponse.Error(Exception("API错误: ${wanAndroidResponse.errorMsg}")))
+                            emit(ApiResponse.Error(NetworkException.BusinessException(wanAndroidResponse.errorCode, "API错误: ${wanAndroidResponse.errorMsg}")))
                         }
                     } else {
                         emit(ApiResponse.Error(Exception("响应体为空")))
                     }
                 } else {
-                    emit(ApiResponse.Error(Exception("网络请求失败: ${response.code}")))
+                    emit(ApiResponse.Error(NetworkException.HttpException(response.code)))
                 }
                 
                 response.close()
                 
             } catch (e: IOException) {
-                emit(ApiResponse.Error(Exception("网络连接失败: ${e.message}")))
+                emit(ApiResponse.Error(NetworkExceptionHandler.handleException(e)))
             } catch (e: Exception) {
                 emit(ApiResponse.Error(Exception("请求失败: ${e.message}")))
             }
         }.flowOn(Dispatchers.IO)
     }
 
+    // 以下数据处理方法在config.responseDispatcher上执行，可能不在主线程
+
     override fun isLoadMoreFinished(response: WanAndroidResponse?): Boolean {
         // 当over为true表示已经到最后一页了
         return response?.data?.over == true
@@ -112,6 +128,10 @@ class SampleListFragment : BaseRefreshLoadListFragment<WanAndroidResponse>() {
         }
     }
 
+    override fun obtainAppendListForAdapter(response: WanAndroidResponse?): List<Any> {
+        return response?.data?.datas ?: emptyList()
+    }
+
     companion object {
         /**
          * 创建SampleListFragment实例
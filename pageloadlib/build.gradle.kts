@@ -38,6 +38,10 @@ android {
     buildFeatures {
         viewBinding = true
     }
+    testOptions {
+        // ViewModel的单元测试会调用SystemClock等Android方法，返回默认值即可
+        unitTests.isReturnDefaultValues = true
+    }
 }
 
 dependencies {
@@ -45,8 +49,11 @@ dependencies {
     implementation(libs.androidx.appcompat)
     implementation(libs.material)
     testImplementation(libs.junit)
+    testImplementation(libs.kotlinx.coroutines.test)
     androidTestImplementation(libs.androidx.junit)
     androidTestImplementation(libs.androidx.espresso.core)
+    androidTestImplementation(libs.androidx.fragment.testing)
+    androidTestImplementation(libs.androidx.fragment.testing.manifest)
 
     api(libs.refresh.layout.kernel)
     api(libs.multitype)
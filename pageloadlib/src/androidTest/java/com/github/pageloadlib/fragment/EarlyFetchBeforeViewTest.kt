@@ -0,0 +1,111 @@
+package com.github.pageloadlib.fragment
+
+import android.view.LayoutInflater
+import android.view.ViewGroup
+import android.widget.TextView
+import androidx.fragment.app.testing.FragmentScenario
+import androidx.fragment.app.testing.launchFragmentInContainer
+import androidx.lifecycle.Lifecycle
+import androidx.recyclerview.widget.RecyclerView
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.drakeet.multitype.ItemViewBinder
+import com.drakeet.multitype.MultiTypeAdapter
+import com.github.pageloadlib.R
+import com.github.pageloadlib.config.FragmentGlobalConfig
+import com.github.pageloadlib.loadmore.MultiTypeLoadMoreAdapter
+import com.github.pageloadlib.net.ApiResponse
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flowOf
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * 提前请求在视图创建之前就返回，例如setMaxLifecycle(CREATED)或ViewPager中不可见的tab
+ */
+@RunWith(AndroidJUnit4::class)
+class EarlyFetchBeforeViewTest {
+
+    class TestListFragment : BaseRefreshLoadListFragment<List<String>>() {
+
+        override fun obtainGlobalConfig(): FragmentGlobalConfig {
+            return FragmentGlobalConfig(requireContext()).apply {
+                earlyFetch = true
+                isShowSkeleton = true
+            }
+        }
+
+        override fun registerViewBinder(adapter: MultiTypeAdapter) {
+            adapter.register(String::class.java, TextBinder())
+        }
+
+        override fun requestData(options: Map<String, Any>): Flow<ApiResponse<List<String>>> {
+            return flowOf(ApiResponse.Success(listOf("a", "b", "c")))
+        }
+
+        override fun obtainListForAdapter(
+            response: List<String>?,
+            currentItems: List<Any>?,
+            isRefresh: Boolean
+        ): List<Any> = response.orEmpty()
+
+        override fun isRequestSuccessButDataEmpty(response: List<String>?): Boolean = response.isNullOrEmpty()
+
+        override fun isLoadMoreFinished(response: List<String>?): Boolean = true
+
+        fun loadedItems(): List<Any>? = getCurrentItems()
+    }
+
+    class TextBinder : ItemViewBinder<String, TextBinder.ViewHolder>() {
+
+        override fun onCreateViewHolder(inflater: LayoutInflater, parent: ViewGroup): ViewHolder {
+            return ViewHolder(TextView(parent.context))
+        }
+
+        override fun onBindViewHolder(holder: ViewHolder, item: String) {
+            (holder.itemView as TextView).text = item
+        }
+
+        class ViewHolder(itemView: TextView) : RecyclerView.ViewHolder(itemView)
+    }
+
+    /**
+     * 在主线程上轮询条件，超时返回false
+     */
+    private fun FragmentScenario<TestListFragment>.waitFor(condition: (TestListFragment) -> Boolean): Boolean {
+        val deadline = System.currentTimeMillis() + 5000
+        while (System.currentTimeMillis() < deadline) {
+            var satisfied = false
+            onFragment { satisfied = condition(it) }
+            if (satisfied) {
+                return true
+            }
+            Thread.sleep(20)
+        }
+        return false
+    }
+
+    @Test
+    fun resultArrivesBeforeViewCreated_rendersWithoutSkeleton() {
+        val scenario = launchFragmentInContainer<TestListFragment>(
+            themeResId = androidx.appcompat.R.style.Theme_AppCompat_Light_NoActionBar,
+            initialState = Lifecycle.State.CREATED
+        )
+        // 停留在CREATED，等待提前请求的结果处理完成
+        assertTrue(scenario.waitFor { it.loadedItems() != null })
+        scenario.onFragment {
+            assertNull(it.view)
+            assertEquals(listOf<Any>("a", "b", "c"), it.loadedItems())
+        }
+
+        // 创建视图后直接渲染已返回的结果，没有创建过骨架屏也不能崩溃
+        scenario.moveToState(Lifecycle.State.RESUMED)
+
+        assertTrue(scenario.waitFor {
+            val adapter = it.requireView().findViewById<RecyclerView>(R.id.brlRecyclerview).adapter
+            adapter is MultiTypeLoadMoreAdapter && adapter.items.contains("c")
+        })
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.pageloadlib.loadmore
+
+import android.view.LayoutInflater
+import android.view.ViewGroup
+import android.widget.TextView
+import androidx.recyclerview.widget.GridLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import com.drakeet.multitype.ItemViewBinder
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * GridLayoutManager布局下按viewType查询列数
+ */
+@RunWith(AndroidJUnit4::class)
+class GridSpanSizeTest {
+
+    private data class Wide(val text: String)
+
+    private class TextBinder<T : Any> : ItemViewBinder<T, TextBinder.ViewHolder>() {
+
+        override fun onCreateViewHolder(inflater: LayoutInflater, parent: ViewGroup): ViewHolder {
+            return ViewHolder(TextView(parent.context))
+        }
+
+        override fun onBindViewHolder(holder: ViewHolder, item: T) {
+            (holder.itemView as TextView).text = item.toString()
+        }
+
+        class ViewHolder(itemView: TextView) : RecyclerView.ViewHolder(itemView)
+    }
+
+    /**
+     * 创建并attach到GridLayoutManager，只注册String类型
+     */
+    private fun attachedAdapter(): MultiTypeLoadMoreAdapter {
+        val adapter = MultiTypeLoadMoreAdapter()
+        adapter.setGridSpanSizes(mapOf(Wide::class.java to 2))
+        adapter.register(String::class.java, TextBinder())
+        InstrumentationRegistry.getInstrumentation().runOnMainSync {
+            val context = InstrumentationRegistry.getInstrumentation().targetContext
+            RecyclerView(context).apply {
+                layoutManager = GridLayoutManager(context, 4)
+                this.adapter = adapter
+            }
+        }
+        return adapter
+    }
+
+    @Test
+    fun typeRegisteredAfterAttach_usesConfiguredSpan() {
+        val adapter = attachedAdapter()
+
+        adapter.register(Wide::class.java, TextBinder())
+
+        assertEquals(2, adapter.spanSizeOf(adapter.types.firstIndexOf(Wide::class.java)))
+        assertEquals(1, adapter.spanSizeOf(adapter.types.firstIndexOf(String::class.java)))
+    }
+
+    @Test
+    fun setGridSpanSizesAfterLookup_replacesCachedSpan() {
+        val adapter = attachedAdapter()
+        val viewType = adapter.types.firstIndexOf(String::class.java)
+        assertEquals(1, adapter.spanSizeOf(viewType))
+
+        adapter.setGridSpanSizes(mapOf(String::class.java to 3))
+
+        assertEquals(3, adapter.spanSizeOf(viewType))
+    }
+
+    @Test
+    fun reRegisteredType_viewTypesShift_spanFollowsType() {
+        val adapter = attachedAdapter()
+        adapter.register(Wide::class.java, TextBinder())
+        assertEquals(2, adapter.spanSizeOf(adapter.types.firstIndexOf(Wide::class.java)))
+
+        // 重复注册会移除旧的注册并追加到末尾，之后的viewType整体前移
+        adapter.register(String::class.java, TextBinder())
+
+        assertEquals(2, adapter.spanSizeOf(adapter.types.firstIndexOf(Wide::class.java)))
+        assertEquals(1, adapter.spanSizeOf(adapter.types.firstIndexOf(String::class.java)))
+    }
+}
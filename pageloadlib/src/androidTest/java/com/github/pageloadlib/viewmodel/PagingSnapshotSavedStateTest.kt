@@ -0,0 +1,113 @@
+package com.github.pageloadlib.viewmodel
+
+import androidx.lifecycle.SavedStateHandle
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.github.pageloadlib.net.ApiResponse
+import com.github.pageloadlib.responselistener.OnProcessResponseSuspendListener
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.emptyFlow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * 分页快照经过SavedStateHandle保存和恢复，模拟进程被回收后重建
+ */
+@RunWith(AndroidJUnit4::class)
+class PagingSnapshotSavedStateTest {
+
+    // 接口数据为逗号分隔的item
+    private val listener = object : OnProcessResponseSuspendListener<String> {
+        override suspend fun obtainListForAdapter(
+            response: String?,
+            currentItems: List<Any>?,
+            isRefresh: Boolean
+        ): List<Any> = response?.split(",").orEmpty()
+
+        override suspend fun isRequestSuccessButDataEmpty(response: String?): Boolean = response.isNullOrEmpty()
+
+        override suspend fun isLoadMoreFinished(response: String?): Boolean = false
+    }
+
+    private val noRequest: (Map<String, Any>) -> Flow<ApiResponse<String>> = { emptyFlow() }
+
+    private fun createViewModel(handle: SavedStateHandle, loadPrevious: Boolean) =
+        LoadMoreListFragmentViewModel<String>(handle).apply {
+            savedStateEnabled = true
+            loadPreviousEnabled = loadPrevious
+            itemKeyProvider = { it }
+        }
+
+    /**
+     * 从第1页开始展示5个item，分页大小为2，记录第一个可见item后保存并重建
+     *
+     * @param anchorPosition 第一个可见item的数据位置
+     * @param anchorOffset 第一个可见item的偏移
+     * @return 重建后的ViewModel
+     */
+    private fun saveAndRecreate(anchorPosition: Int, anchorOffset: Int, loadPrevious: Boolean):
+            LoadMoreListFragmentViewModel<String> = runBlocking {
+        val handle = SavedStateHandle()
+        val viewModel = createViewModel(handle, loadPrevious)
+        viewModel.submitRestoredPage(
+            mapOf(LoadMoreListFragmentViewModel.KEY_PAGE to 1, LoadMoreListFragmentViewModel.KEY_PAGE_SIZE to 2),
+            "a,b,c,d,e",
+            noRequest,
+            listener
+        )
+        withTimeout(5000) {
+            viewModel.pagingState.first { it.items != null }
+        }
+        viewModel.updateScrollAnchor(anchorPosition, anchorOffset)
+
+        val saved = handle.savedStateProvider().saveState()
+        createViewModel(SavedStateHandle.createHandle(saved, null), loadPrevious)
+    }
+
+    @Test
+    fun restore_withLoadPrevious_startsFromAnchorPage() {
+        val snapshot = saveAndRecreate(3, 12, loadPrevious = true).takeRestoredSnapshot()
+
+        assertNotNull(snapshot)
+        assertEquals(2, snapshot!!.startPageIndex)
+        assertEquals("d", snapshot.anchorKey)
+        assertEquals(1, snapshot.anchorPosition)
+        assertEquals(12, snapshot.anchorOffset)
+        assertNull(snapshot.pageData)
+    }
+
+    @Test
+    fun restore_withoutLoadPrevious_anchorInFirstPage_keepsPosition() {
+        val snapshot = saveAndRecreate(1, 5, loadPrevious = false).takeRestoredSnapshot()
+
+        assertNotNull(snapshot)
+        assertEquals(1, snapshot!!.startPageIndex)
+        assertEquals("b", snapshot.anchorKey)
+        assertEquals(1, snapshot.anchorPosition)
+        assertEquals(5, snapshot.anchorOffset)
+    }
+
+    @Test
+    fun restore_withoutLoadPrevious_anchorPastFirstPage_restoresToTop() {
+        val snapshot = saveAndRecreate(3, 12, loadPrevious = false).takeRestoredSnapshot()
+
+        assertNotNull(snapshot)
+        assertEquals(1, snapshot!!.startPageIndex)
+        assertNull(snapshot.anchorKey)
+        assertEquals(0, snapshot.anchorPosition)
+        assertEquals(0, snapshot.anchorOffset)
+    }
+
+    @Test
+    fun takeRestoredSnapshot_readsOnlyOnce() {
+        val viewModel = saveAndRecreate(1, 0, loadPrevious = false)
+
+        assertNotNull(viewModel.takeRestoredSnapshot())
+        assertNull(viewModel.takeRestoredSnapshot())
+    }
+}
@@ -0,0 +1,11 @@
+package com.github.pageloadlib.adapter
+
+/**
+ * ItemViewBinder实现该接口表示onCreateViewHolder可以在后台线程执行，
+ * 开启FragmentGlobalConfig.preInflateViewHolderCount时该类型在后台线程预先创建ViewHolder，
+ * 没有实现的类型只在主线程空闲时创建
+ *
+ * 实现时onCreateViewHolder中不能依赖主线程Looper（例如创建Handler、WebView或启动动画），
+ * 也不能访问Fragment和Activity的状态
+ */
+interface BackgroundInflatable
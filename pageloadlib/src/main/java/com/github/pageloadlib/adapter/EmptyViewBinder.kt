@@ -5,9 +5,19 @@ import android.view.ViewGroup
 import com.drakeet.multitype.ItemViewBinder
 import com.github.pageloadlib.R
 import com.github.pageloadlib.config.PlaceholderViewStyleConfig
+import com.github.pageloadlib.loadmore.KeyedItem
 
 class EmptyViewBinder(val config: PlaceholderViewStyleConfig?) :
-    ItemViewBinder<EmptyViewBinder.EmptyItem, EmptyViewHolder>() {
+    ItemViewBinder<EmptyViewBinder.EmptyItem, EmptyViewHolder>(), RecycledViewPoolSize {
+
+    // 列表中最多只有一个空视图
+    override val maxRecycledViews: Int
+        get() = 1
+
+    // 空视图创建时使用了本列表的样式配置，不能被其他列表复用
+    override val isShareable: Boolean
+        get() = false
+
     override fun onBindViewHolder(holder: EmptyViewHolder, item: EmptyItem) {
         holder.onBind()
     }
@@ -19,7 +29,13 @@ class EmptyViewBinder(val config: PlaceholderViewStyleConfig?) :
         )
     }
 
-    class EmptyItem {
+    class EmptyItem : KeyedItem {
+        // 列表中最多只有一个空视图
+        override val itemKey: Any
+            get() = KEY_EMPTY
+    }
 
+    companion object {
+        private const val KEY_EMPTY = "empty_item"
     }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.github.pageloadlib.adapter
+
+import android.view.LayoutInflater
+import android.view.View
+import android.view.ViewGroup
+import androidx.recyclerview.widget.RecyclerView
+import com.drakeet.multitype.ItemViewBinder
+import com.github.pageloadlib.R
+import com.github.pageloadlib.loadmore.KeyedItem
+
+/**
+ * 窗口模式下被淘汰分页的占位视图，滑回时重新加载该页后替换为真实数据
+ * 可在registerViewBinder中为PagePlaceholderItem注册自定义的ViewBinder
+ */
+class PagePlaceholderViewBinder :
+    ItemViewBinder<PagePlaceholderViewBinder.PagePlaceholderItem, PagePlaceholderViewBinder.ViewHolder>() {
+
+    override fun onCreateViewHolder(inflater: LayoutInflater, parent: ViewGroup): ViewHolder {
+        return ViewHolder(inflater.inflate(R.layout.common_ui_item_list_skeleton, parent, false))
+    }
+
+    override fun onBindViewHolder(holder: ViewHolder, item: PagePlaceholderItem) {
+    }
+
+    class ViewHolder(itemView: View) : RecyclerView.ViewHolder(itemView)
+
+    /**
+     * 占位数据，每个位置一个实例，保证稳定ID不重复
+     * @param pageIndex 被淘汰的页码
+     * @param index 在该页中的位置
+     */
+    class PagePlaceholderItem(val pageIndex: Int, val index: Int = 0) : KeyedItem {
+        override val itemKey: Any = (pageIndex.toLong() shl 32) or index.toLong()
+    }
+}
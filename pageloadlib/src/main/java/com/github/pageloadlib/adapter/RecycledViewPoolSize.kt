@@ -0,0 +1,20 @@
+package com.github.pageloadlib.adapter
+
+/**
+ * ItemViewBinder实现该接口指定该类型在RecyclerView复用池中最多缓存的ViewHolder数量，
+ * 没有实现时使用FragmentGlobalConfig.recycledViewPoolMaxSize
+ */
+interface RecycledViewPoolSize {
+
+    /**
+     * 复用池中该类型最多缓存的数量
+     */
+    val maxRecycledViews: Int
+
+    /**
+     * 是否可以放入多个列表共用的复用池，ViewHolder创建时持有了Fragment的配置或回调时返回false，
+     * 此时该类型在共用复用池中不缓存，避免其他列表复用到这个ViewHolder
+     */
+    val isShareable: Boolean
+        get() = true
+}
@@ -0,0 +1,147 @@
+package com.github.pageloadlib.cache
+
+import android.content.Context
+import android.util.LruCache
+import androidx.annotation.VisibleForTesting
+import com.google.gson.Gson
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import java.io.File
+import java.lang.reflect.Type
+import java.security.MessageDigest
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+
+/**
+ * 分页数据缓存
+ * 内存LRU + 磁盘两级缓存，磁盘缓存位于应用cache目录下，使用Gson序列化
+ * 用于列表页先展示缓存数据，再在后台请求接口更新
+ */
+class PageCache @VisibleForTesting internal constructor(
+    private val cacheDir: File,
+    // 磁盘写入和删除在该线程执行，读取在IO调度器上执行
+    private val diskExecutor: Executor
+) {
+
+    companion object {
+        private const val DIR_NAME = "pageload_cache"
+        private const val MAX_MEMORY_ENTRIES = 32
+
+        @Volatile
+        private var INSTANCE: PageCache? = null
+
+        fun getInstance(context: Context): PageCache {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: PageCache(
+                    File(context.applicationContext.cacheDir, DIR_NAME),
+                    Executors.newSingleThreadExecutor()
+                ).also { INSTANCE = it }
+            }
+        }
+
+        /**
+         * 根据请求标识和请求参数生成缓存key
+         * @param identity 请求标识，区分不同的列表
+         * @param params 请求参数
+         */
+        fun buildKey(identity: String, params: Map<String, Any>): String {
+            return identity + "?" + params.toSortedMap().entries.joinToString("&")
+        }
+    }
+
+    private val memoryCache = LruCache<String, Any>(MAX_MEMORY_ENTRIES)
+    private val gson = Gson()
+
+    /**
+     * 读取内存缓存，可在主线程调用
+     */
+    @Suppress("UNCHECKED_CAST")
+    fun <T> getFromMemory(key: String): T? {
+        return memoryCache.get(key) as? T
+    }
+
+    /**
+     * 读取缓存，内存未命中时在IO线程读取磁盘缓存
+     * @param key 缓存key
+     * @param type 数据类型，为null时只读取内存缓存
+     */
+    suspend fun <T> get(key: String, type: Type?): T? {
+        getFromMemory<T>(key)?.let {
+            return it
+        }
+        if (type == null) {
+            return null
+        }
+        val value = withContext(Dispatchers.IO) {
+            val file = fileOf(key)
+            if (!file.exists()) {
+                return@withContext null
+            }
+            try {
+                gson.fromJson<T>(file.readText(), type)
+            } catch (e: Exception) {
+                // 缓存文件损坏，直接删除
+                file.delete()
+                null
+            }
+        }
+        value?.let {
+            memoryCache.put(key, it)
+        }
+        return value
+    }
+
+    /**
+     * 写入缓存
+     * @param key 缓存key
+     * @param value 数据
+     * @param type 数据类型，为null时只写入内存缓存
+     */
+    fun put(key: String, value: Any, type: Type?) {
+        memoryCache.put(key, value)
+        if (type == null) {
+            return
+        }
+        diskExecutor.execute {
+            try {
+                if (!cacheDir.exists()) {
+                    cacheDir.mkdirs()
+                }
+                // 先写临时文件再重命名，避免读到写了一半的文件
+                val file = fileOf(key)
+                val tempFile = File(cacheDir, file.name + ".tmp")
+                tempFile.writeText(gson.toJson(value, type))
+                if (!tempFile.renameTo(file)) {
+                    tempFile.delete()
+                }
+            } catch (ignored: Exception) {
+            }
+        }
+    }
+
+    /**
+     * 删除指定缓存
+     */
+    fun remove(key: String) {
+        memoryCache.remove(key)
+        diskExecutor.execute {
+            fileOf(key).delete()
+        }
+    }
+
+    /**
+     * 清空所有缓存
+     */
+    fun clear() {
+        memoryCache.evictAll()
+        diskExecutor.execute {
+            cacheDir.listFiles()?.forEach { it.delete() }
+        }
+    }
+
+    private fun fileOf(key: String): File {
+        val digest = MessageDigest.getInstance("MD5").digest(key.toByteArray())
+        val name = digest.joinToString("") { "%02x".format(it) }
+        return File(cacheDir, name)
+    }
+}
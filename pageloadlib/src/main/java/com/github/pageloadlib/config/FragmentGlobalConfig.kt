@@ -3,10 +3,16 @@ package com.github.pageloadlib.config
 import android.content.Context
 import androidx.annotation.DrawableRes
 import androidx.annotation.RawRes
+import androidx.recyclerview.widget.RecyclerView
 import com.github.pageloadlib.R
+import com.github.pageloadlib.loadmore.ItemDiffCallback
+import com.github.pageloadlib.metrics.OnFrameMetricsListener
 import com.github.pageloadlib.util.IDividerItemDecoration
 import com.scwang.smart.refresh.header.ClassicsHeader
 import com.scwang.smart.refresh.layout.api.RefreshHeader
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.Dispatchers
+import java.lang.reflect.Type
 
 /**
  * 用于配置Fragment相关的全局变量
@@ -34,6 +40,18 @@ class FragmentGlobalConfig constructor(context: Context?) {
      */
     var pageSize = 20
 
+    /**
+     * 加载更多是否使用追加模式：只下发本页增量数据并局部插入，
+     * 需要实现OnProcessResponseListener.obtainAppendListForAdapter
+     */
+    var appendOnLoadMore = false
+
+    /**
+     * 刷新时使用的diff回调，设置后下拉刷新的结果在后台线程计算差异并局部刷新，
+     * 为null时整体替换列表
+     */
+    var refreshDiffCallback: ItemDiffCallback? = null
+
     /**
      * 页面超过多少条数据才展示"到底了"，默认为3
      */
@@ -76,6 +94,115 @@ class FragmentGlobalConfig constructor(context: Context?) {
      */
     var loadMoreWhenLeftItemCount = 4
 
+    /**
+     * 自适应触发加载更多：根据滑动速度和item平均高度估算到达列表末尾的时间，
+     * 小于最近分页请求耗时的p90时触发，还没有耗时数据时使用loadMoreWhenLeftItemCount
+     */
+    var adaptiveLoadMoreTrigger = false
+
+    /**
+     * 是否开启稳定ID，item的key优先使用KeyedItem.itemKey，其次使用refreshDiffCallback.getItemKey，
+     * 同一类型的key不能重复，所有item都需要有key，debug模式下没有key会抛出异常
+     */
+    var useStableIds = false
+
+    /**
+     * 多个列表共用的RecyclerView复用池，例如ViewPager中的多个tab，切换tab时可以直接复用其他tab的ViewHolder，
+     * 共用复用池的Fragment需要按相同的顺序注册相同的ItemViewBinder，保证viewType一致
+     */
+    var sharedRecycledViewPool: RecyclerView.RecycledViewPool? = null
+
+    /**
+     * 复用池中每种类型最多缓存的ViewHolder数量，ItemViewBinder实现RecycledViewPoolSize时以其为准
+     */
+    var recycledViewPoolMaxSize = 10
+
+    /**
+     * 主线程空闲时为registerViewBinder注册的每种类型预先创建的ViewHolder数量，0表示不预先创建
+     */
+    var prewarmViewHolderCount = 0
+
+    /**
+     * 首次请求期间为每种类型预先创建的ViewHolder数量，数据返回后只需要绑定，0表示不预先创建，
+     * ItemViewBinder实现BackgroundInflatable的类型在后台线程创建，其他类型在主线程空闲时创建，
+     * 上次首屏各类型的数量保存在SharedPreferences中，之后优先按该数量创建
+     */
+    var preInflateViewHolderCount = 0
+
+    /**
+     * 下拉刷新时合并新数据：只请求比当前第一项更新的数据，按key去掉已有的部分后插入到列表开头，
+     * 保留已加载的页和滑动位置，新增数量通过onHeadMerged回调，需要item有key（KeyedItem或refreshDiffCallback）
+     */
+    var headMergeRefresh = false
+
+    /**
+     * 预取深度：加载完一页后最多提前请求并暂存的页数，滑动触发加载更多时直接提交暂存的数据，
+     * 0表示不预取，刷新时会丢弃已预取的数据
+     */
+    var prefetchPageCount = 0
+
+    /**
+     * 窗口模式下最多常驻内存的页数，超出后离可见区域最远的页被替换为占位数据，
+     * 滑回时自动重新加载，0表示不限制，需要同时开启appendOnLoadMore
+     */
+    var maxResidentPages = 0
+
+    /**
+     * 是否支持加载上一页：列表开头显示加载上一页的item，向上滑动到开头时把上一页插入到列表开头，
+     * 配合requestDatasFromPage从中间页打开列表，需要实现obtainAppendListForAdapter
+     */
+    var supportLoadPrevious = false
+
+    /**
+     * 分页缓存的请求标识，设置后刷新时先展示缓存的第一页数据，再请求接口更新，
+     * 缓存key由该标识和请求参数组成，为null表示不使用缓存
+     */
+    var pageCacheIdentity: String? = null
+
+    /**
+     * 分页缓存的数据类型，用于Gson序列化到磁盘，为null时只使用内存缓存
+     */
+    var pageCacheType: Type? = null
+
+    /**
+     * 是否在进程被回收后恢复列表：通过SavedStateHandle保存页码和第一个可见item的位置，
+     * 重建后从该item所在的页开始请求并滚动回原来的位置，没有开启supportLoadPrevious且该item不在起始页时，
+     * 从原来的起始页开始请求并回到顶部
+     */
+    var restorePagingState = false
+
+    /**
+     * 恢复列表时保存起始页接口数据的字节上限，数据不超过上限时重建后直接展示而不请求接口，
+     * 需要设置pageCacheType用于Gson序列化，0表示只保存页码和位置
+     */
+    var savedStateByteBudget = 0
+
+    /**
+     * 处理接口返回数据的调度器，obtainListForAdapter、isRequestSuccessButDataEmpty、isLoadMoreFinished
+     * 等方法都在该调度器上执行，只有最终的列表切回主线程，实现这些方法时不要访问视图
+     *
+     * 注意：这是行为变化，之前这些方法都在主线程调用，现在默认在Dispatchers.Default上执行。
+     * 实现中读写Fragment字段或其他共享状态时需要保证线程安全，加载更多的处理被列表变化打断时
+     * 同一份数据可能被处理多次，也可能最后一次在主线程处理。依赖主线程的旧实现可以设置为Dispatchers.Main.immediate
+     */
+    var responseDispatcher: CoroutineDispatcher = Dispatchers.Default
+
+    /**
+     * 加载更多失败后自动重试的次数上限，只重试网络连接、超时和服务端错误，业务异常不重试，
+     * 重试间隔按指数退避并加入随机抖动，断网时暂停、网络恢复后继续，0表示不自动重试
+     */
+    var autoRetryCount = 0
+
+    /**
+     * 自动重试的初始间隔（毫秒），之后每次翻倍
+     */
+    var autoRetryBaseDelayMillis = 1000L
+
+    /**
+     * 自动重试的最大间隔（毫秒）
+     */
+    var autoRetryMaxDelayMillis = 30000L
+
     /**
      * 设置兜底页面的样式，包括错误样式和空样式
      */
@@ -86,6 +213,11 @@ class FragmentGlobalConfig constructor(context: Context?) {
      */
     var backToTopWhenShowItemCount = 20
 
+    /**
+     * 点击返回顶部时，距离顶部超过该item数量先直接跳到该位置再平滑滚动，0表示按两屏的item数量计算
+     */
+    var backToTopJumpThreshold = 0
+
     /**
      * 设置返回顶部图标, 0表示不设置
      */
@@ -112,16 +244,61 @@ class FragmentGlobalConfig constructor(context: Context?) {
      */
     var forceRequestOnActivityCreated = false
 
+    /**
+     * 提前请求：在onCreate中发起首页请求，不等待布局加载和onActivityCreated，视图创建后直接展示已返回的结果，
+     * 进程被回收后重建时不生效
+     */
+    var earlyFetch = false
+
+    /**
+     * 在创建Fragment之前通过EarlyFetch.start发起首页请求时使用的key，首次请求首页时直接使用该请求的结果
+     */
+    var earlyFetchKey: String? = null
+
+    /**
+     * 按生命周期懒加载：进入RESUMED（可见）时立即请求，其他已创建但不可见的列表排队在后台预加载，
+     * 适用于ViewPager2和BEHAVIOR_RESUME_ONLY_CURRENT_FRAGMENT，开启后不再使用userVisibleHint和forceRequestOnActivityCreated
+     */
+    var lazyLoadOnResume = false
+
+    /**
+     * 懒加载时同时进行的后台预加载数量上限，可见列表首次加载期间暂停预加载，0表示只在可见时加载，
+     * 所有列表共用同一个上限
+     */
+    var maxConcurrentPreloads = 1
+
+    /**
+     * 帧耗时统计：不为null时在列表处于前台期间收集帧耗时，按惯性滑动、加载更多插入、刷新、
+     * 骨架屏切换和footer更新分阶段统计，离开前台时回调
+     */
+    var frameMetricsListener: OnFrameMetricsListener? = null
+
+    /**
+     * 帧耗时统计中的页面名称，为null时使用Fragment的类名
+     */
+    var frameMetricsScreenName: String? = null
+
     /**
      * skeleton图类型 0:默认 1:列表 2:网格 3:瀑布流
      */
     var skeletonType: Int? = 0
 
     /**
-     * layoutManagerType类型 LayoutManagerType.LINEAR  LayoutManagerType.STAGGERED_GRID
+     * layoutManagerType类型 LayoutManagerType.LINEAR  LayoutManagerType.GRID  LayoutManagerType.STAGGERED_GRID
      */
     var layoutManagerType: LayoutManagerType = LayoutManagerType.LINEAR
 
+    /**
+     * 网格和瀑布流布局的列数
+     */
+    var spanCount = 2
+
+    /**
+     * 网格布局下每种item类型占用的列数，key为registerViewBinder注册的item类型，未配置的类型占1列，
+     * 加载更多的item始终占满一行
+     */
+    var gridSpanSizes: Map<Class<*>, Int> = emptyMap()
+
     /**
      * 是否展示骨架屏, 默认不展示
      */
@@ -7,5 +7,6 @@ package com.github.pageloadlib.config
  */
 enum class LayoutManagerType {
     LINEAR,
+    GRID,
     STAGGERED_GRID
-}
\ No newline at end of file
+}
@@ -0,0 +1,18 @@
+package com.github.pageloadlib.event
+
+/**
+ * 通知UI层列表的局部变化：从startIndex开始的removeCount项被替换为items，追加时removeCount为0
+ *
+ * @param version 变化后的列表版本，UI层据此判断是否已经渲染过或者是否有遗漏的变化
+ * @param startIndex 变化的起始位置
+ * @param removeCount 被替换的数量
+ * @param items 新的数据
+ * @param payload 数量不变的内容更新携带的payload，局部刷新时传给ItemViewBinder
+ */
+class ListChangeEvent(
+    val version: Int,
+    val startIndex: Int,
+    val removeCount: Int,
+    val items: List<Any>,
+    val payload: Any? = null
+)
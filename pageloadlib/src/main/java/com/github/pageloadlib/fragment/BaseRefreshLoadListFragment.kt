@@ -1,38 +1,65 @@
 package com.github.pageloadlib.fragment
 
 import android.annotation.SuppressLint
+import android.content.Context
 import android.graphics.drawable.Drawable
 import android.os.Bundle
+import android.os.Looper
+import android.os.MessageQueue
+import android.util.SparseIntArray
+import android.view.Choreographer
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
 import android.widget.FrameLayout
 import android.widget.ImageButton
 import androidx.core.content.res.ResourcesCompat
+import androidx.core.view.doOnNextLayout
 import androidx.fragment.app.viewModels
-import androidx.lifecycle.Observer
+import androidx.lifecycle.Lifecycle
+import androidx.lifecycle.lifecycleScope
+import androidx.lifecycle.repeatOnLifecycle
+import androidx.recyclerview.widget.GridLayoutManager
 import androidx.recyclerview.widget.LinearLayoutManager
 import androidx.recyclerview.widget.RecyclerView
 import androidx.recyclerview.widget.StaggeredGridLayoutManager
 import com.drakeet.multitype.MultiTypeAdapter
 import com.github.pageloadlib.R
 import com.github.pageloadlib.net.ApiResponse
+import com.github.pageloadlib.net.ConnectivityObserver
+import com.github.pageloadlib.net.EarlyFetch
 import kotlinx.coroutines.flow.Flow
+import com.github.pageloadlib.adapter.BackgroundInflatable
 import com.github.pageloadlib.adapter.EmptyViewBinder
+import com.github.pageloadlib.adapter.PagePlaceholderViewBinder
+import com.github.pageloadlib.adapter.RecycledViewPoolSize
+import com.github.pageloadlib.cache.PageCache
 import com.github.pageloadlib.config.FragmentGlobalConfig
 import com.github.pageloadlib.config.LayoutManagerType
 import com.github.pageloadlib.config.PlaceholderViewStyleConfig
 import com.github.pageloadlib.event.EntityUIEvent
 import com.github.pageloadlib.loadmore.CommonLoadMoreViewBinder
+import com.github.pageloadlib.loadmore.KeyedItem
 import com.github.pageloadlib.loadmore.LoadMoreDelegate
 import com.github.pageloadlib.loadmore.MultiTypeLoadMoreAdapter
+import com.github.pageloadlib.metrics.FrameMetricsCollector
+import com.github.pageloadlib.metrics.FramePhase
 import com.github.pageloadlib.responselistener.OnProcessResponseListener
+import com.github.pageloadlib.responselistener.OnProcessResponseSuspendListener
+import com.github.pageloadlib.responselistener.asSuspendListener
 import com.github.pageloadlib.skeletonlayout.RecyclerViewSkeletonScreen
 import com.github.pageloadlib.skeletonlayout.Skeleton
 import com.github.pageloadlib.util.DensityUtils
 import com.github.pageloadlib.util.IDividerItemDecoration
+import com.github.pageloadlib.viewmodel.ListMutation
 import com.github.pageloadlib.viewmodel.LoadMoreListFragmentViewModel
+import com.github.pageloadlib.viewmodel.PagingSnapshot
+import com.github.pageloadlib.viewmodel.PagingState
 import com.scwang.smart.refresh.layout.SmartRefreshLayout
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
 
 /**
  * 基础刷新加载列表Fragment抽象类
@@ -43,12 +70,15 @@ import com.scwang.smart.refresh.layout.SmartRefreshLayout
  * 主要功能：
  * - 支持下拉刷新和上拉加载更多
  * - 支持骨架屏显示提升用户体验
- * - 支持多种布局管理器（线性布局、瀑布流布局）
+ * - 支持多种布局管理器（线性布局、网格布局、瀑布流布局）
  * - 支持自定义空视图和错误视图
  * - 支持返回顶部功能
  * - 支持自定义加载更多视图
  * - 基于MVVM架构，使用ViewModel管理数据
  * 
+ * 懒加载：FragmentGlobalConfig.lazyLoadOnResume开启后按生命周期决定请求时机，可见的列表立即请求，
+ * 不可见的列表按maxConcurrentPreloads限制在后台预加载
+ *
  * 使用方式：
  * 1. 继承此类并实现所有抽象方法
  * 2. 在obtainGlobalConfig()中配置Fragment行为
@@ -68,21 +98,86 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
     private var brlBackToTop: ImageButton? = null
     private var customBackTopDrawable: Drawable? = null
 
+    // 返回顶部按钮当前是否处于显示状态（包括渐入动画过程中）
+    private var isBackTopShown = false
+
+    // 是否正在返回顶部，滚动停止前不再显示返回顶部按钮
+    private var isScrollingBackToTop = false
+
     private val adapter = MultiTypeLoadMoreAdapter()
     private val viewModel: LoadMoreListFragmentViewModel<T> by viewModels()
     private var placeholderViewStyleConfig: PlaceholderViewStyleConfig? = null
     private lateinit var fragmentGlobalConfig: FragmentGlobalConfig
-    private lateinit var skeletonScreen: RecyclerViewSkeletonScreen
+    // 正在显示的骨架屏，只在首次刷新开始时创建，提前请求在视图创建前返回时不会创建
+    private var skeletonScreen: RecyclerViewSkeletonScreen? = null
 
     // 是否调用过接口
     private var hasLoadOnce: Boolean = false
 
+    // 懒加载模式下是否已经开始首次请求
+    private var isLazyLoadStarted = false
+
+    // 是否在创建视图之前提前发起了首页请求
+    private var isEarlyFetchStarted = false
+
     // 是否成功调用过接口，用于判断是否显示骨架屏
     private var hasRequestSuccessOnce: Boolean = false
 
     // 接口请求参数
     private var requestParams: MutableMap<String, Any> = mutableMapOf()
 
+    // 处理接口返回数据的监听，子类可以通过obtainResponseSuspendListener提供挂起版本
+    private val responseListener: OnProcessResponseSuspendListener<T> by lazy {
+        obtainResponseSuspendListener() ?: asSuspendListener()
+    }
+
+    // 适配器已渲染的列表版本，对应LoadMoreListFragmentViewModel.listVersion
+    private var renderedListVersion = 0
+
+    // 等待下一帧渲染的列表状态，一帧内多次变化只渲染最新的一次
+    private var pendingState: PagingState? = null
+
+    // 帧耗时统计，配置了frameMetricsListener时在前台期间收集
+    private var frameMetricsCollector: FrameMetricsCollector? = null
+
+    // 预先创建ViewHolder的空闲任务
+    private var prewarmIdleHandler: MessageQueue.IdleHandler? = null
+
+    // 首次请求期间在后台线程预先创建ViewHolder的任务
+    private var preInflateJob: Job? = null
+
+    // 当前是否展示了空视图，展示时适配器中的数据已被替换
+    private var isEmptyViewShown = false
+
+    // 最近一次渲染的列表状态
+    private var renderedState: PagingState? = null
+
+    // 进程被回收后恢复列表时等待滚动到的位置
+    private var pendingRestoreSnapshot: PagingSnapshot<T>? = null
+
+    // 在下一帧渲染列表状态
+    private val renderFrameCallback = Choreographer.FrameCallback {
+        pendingState?.let { state ->
+            pendingState = null
+            renderState(state)
+        }
+    }
+
+    /**
+     * 创建Fragment
+     * 读取全局配置并初始化ViewModel，开启earlyFetch时在创建视图之前发起首页请求
+     *
+     * @param savedInstanceState 保存的实例状态
+     */
+    override fun onCreate(savedInstanceState: Bundle?) {
+        super.onCreate(savedInstanceState)
+        fragmentGlobalConfig = obtainGlobalConfig()
+        configureViewModel()
+        if (fragmentGlobalConfig.earlyFetch && savedInstanceState == null) {
+            startEarlyFetch()
+        }
+    }
+
     /**
      * 创建Fragment视图
      * 
@@ -107,6 +202,8 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
             }
         }
         isViewCreated = true
+        // 视图销毁时ViewModel会清空请求函数，重建后重新绑定到当前Fragment
+        viewModel.bindRequest(::requestPageFlow, responseListener)
         val parent = contentView?.parent
         if (parent is ViewGroup) {
             parent.removeView(contentView)
@@ -134,15 +231,44 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
                 LinearLayoutManager(view.context)
             }
 
+            LayoutManagerType.GRID -> {
+                GridLayoutManager(view.context, fragmentGlobalConfig.spanCount)
+            }
+
             LayoutManagerType.STAGGERED_GRID -> {
-                StaggeredGridLayoutManager(2, StaggeredGridLayoutManager.VERTICAL)
+                StaggeredGridLayoutManager(fragmentGlobalConfig.spanCount, StaggeredGridLayoutManager.VERTICAL)
             }
         }
+        fragmentGlobalConfig.sharedRecycledViewPool?.let { pool ->
+            // 视图移除时把ViewHolder放回共用的复用池，供其他列表使用
+            (brlRecyclerview?.layoutManager as? LinearLayoutManager)?.recycleChildrenOnDetach = true
+            brlRecyclerview?.setRecycledViewPool(pool)
+            configureRecycledViewPool(pool)
+        }
         brlRecyclerview?.adapter = adapter
         brlRecyclerview?.addOnScrollListener(object : RecyclerView.OnScrollListener() {
             override fun onScrollStateChanged(recyclerView: RecyclerView, newState: Int) {
                 super.onScrollStateChanged(recyclerView, newState)
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    isScrollingBackToTop = false
+                }
+                frameMetricsCollector?.setFling(newState == RecyclerView.SCROLL_STATE_SETTLING)
                 takeControlBackTopView()
+                if (newState == RecyclerView.SCROLL_STATE_IDLE && fragmentGlobalConfig.restorePagingState) {
+                    captureScrollAnchor()?.let {
+                        viewModel.updateScrollAnchor(it.first - adapter.headerItemCount, it.second)
+                    }
+                }
+            }
+
+            override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
+                super.onScrolled(recyclerView, dx, dy)
+                if (dy != 0) {
+                    takeControlBackTopView()
+                }
+                if (fragmentGlobalConfig.maxResidentPages > 0) {
+                    notifyVisibleRange()
+                }
             }
         })
         if (fragmentGlobalConfig.layoutManagerType == LayoutManagerType.LINEAR) {
@@ -163,7 +289,9 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
         brlSmartRefreshLayout?.setEnableOverScrollBounce(false)
         brlSmartRefreshLayout?.setOnRefreshListener {
             onPullToRefresh()
-            requestDatas(true, showProgress = false)
+            if (!fragmentGlobalConfig.headMergeRefresh || !requestHeadMerge()) {
+                requestDatas(true, showProgress = false)
+            }
         }
     }
 
@@ -175,22 +303,102 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
      */
     override fun onActivityCreated(savedInstanceState: Bundle?) {
         super.onActivityCreated(savedInstanceState)
-        viewModel.debug = fragmentGlobalConfig.debug
-        viewModel.currentPageIndex = fragmentGlobalConfig.firstPageStartFrom
         setErrorViewConfig(placeholderViewStyleConfig)
         initObserver()
+        if (fragmentGlobalConfig.prewarmViewHolderCount > 0) {
+            prewarmRecycledViewPool(fragmentGlobalConfig.prewarmViewHolderCount)
+        }
+        // 提前发起的请求还没有返回时显示加载中，返回后由列表状态渲染
+        if (isEarlyFetchStarted) {
+            isEarlyFetchStarted = false
+            if (viewModel.isLoading) {
+                startRefresh(true)
+            }
+            return
+        }
+        // 进程被回收后重建时从保存的位置恢复
+        if (restorePagingSnapshot()) {
+            return
+        }
+        if (fragmentGlobalConfig.lazyLoadOnResume) {
+            // 不可见时排队预加载，可见时在onResume中立即请求
+            if (!hasLoadOnce) {
+                LazyLoadScheduler.maxConcurrentPreloads = fragmentGlobalConfig.maxConcurrentPreloads
+                LazyLoadScheduler.enqueue(this) { startLazyLoad() }
+            }
+            return
+        }
         // fragment可见或者在OnActivityCreated回调触发时强制请求接口
         if (userVisibleHint || fragmentGlobalConfig.forceRequestOnActivityCreated) {
             requestDatas(true)
         }
     }
 
+    /**
+     * 根据全局配置初始化ViewModel，不依赖视图，在onCreate中调用
+     */
+    private fun configureViewModel() {
+        if (fragmentGlobalConfig.maxResidentPages > 0 && !fragmentGlobalConfig.appendOnLoadMore) {
+            // 非追加模式无法得知分页边界，占位数据还会通过obtainListForAdapter的currentItems交给业务代码
+            throw IllegalStateException("maxResidentPages需要同时开启appendOnLoadMore")
+        }
+        viewModel.debug = fragmentGlobalConfig.debug
+        viewModel.currentPageIndex = fragmentGlobalConfig.firstPageStartFrom
+        viewModel.firstPageIndex = fragmentGlobalConfig.firstPageStartFrom
+        viewModel.loadPreviousEnabled = fragmentGlobalConfig.supportLoadPrevious
+        viewModel.appendMode = fragmentGlobalConfig.appendOnLoadMore
+        viewModel.prefetchDepth = fragmentGlobalConfig.prefetchPageCount
+        viewModel.maxResidentPages = fragmentGlobalConfig.maxResidentPages
+        viewModel.processDispatcher = fragmentGlobalConfig.responseDispatcher
+        val diffCallback = fragmentGlobalConfig.refreshDiffCallback
+        viewModel.itemKeyProvider = { (it as? KeyedItem)?.itemKey ?: diffCallback?.getItemKey(it) }
+        viewModel.autoRetryCount = fragmentGlobalConfig.autoRetryCount
+        viewModel.autoRetryBaseDelayMillis = fragmentGlobalConfig.autoRetryBaseDelayMillis
+        viewModel.autoRetryMaxDelayMillis = fragmentGlobalConfig.autoRetryMaxDelayMillis
+        if (fragmentGlobalConfig.autoRetryCount > 0) {
+            viewModel.connectivityObserver = ConnectivityObserver.getInstance(requireContext())
+        }
+        viewModel.savedStateEnabled = fragmentGlobalConfig.restorePagingState
+        viewModel.savedStateByteBudget = fragmentGlobalConfig.savedStateByteBudget
+        fragmentGlobalConfig.pageCacheIdentity?.let { identity ->
+            viewModel.pageCache = PageCache.getInstance(requireContext())
+            viewModel.pageCacheIdentity = identity
+            viewModel.pageCacheType = fragmentGlobalConfig.pageCacheType
+        }
+    }
+
+    /**
+     * 在创建视图之前发起首页请求，网络请求与布局加载并行，视图创建后通过列表状态展示结果
+     */
+    private fun startEarlyFetch() {
+        if (viewModel.pagingState.value.items != null || viewModel.isLoading) {
+            return
+        }
+        requestParams[LoadMoreListFragmentViewModel.KEY_PAGE] = 1
+        requestParams[LoadMoreListFragmentViewModel.KEY_PAGE_SIZE] = fragmentGlobalConfig.pageSize
+        viewModel.requestData(requestParams, ::requestPageFlow, true, responseListener)
+        isEarlyFetchStarted = true
+    }
+
+    /**
+     * 获取分页请求，首页优先使用EarlyFetch中提前发起的请求
+     *
+     * @param params 请求参数
+     * @return 请求结果的数据流
+     */
+    private fun requestPageFlow(params: Map<String, Any>): Flow<ApiResponse<T>> {
+        val key = fragmentGlobalConfig.earlyFetchKey
+        if (key != null && params[LoadMoreListFragmentViewModel.KEY_PAGE] == 1) {
+            EarlyFetch.take<T>(key)?.let { return it }
+        }
+        return requestData(params)
+    }
+
     /**
      * 初始化全局配置
      * 根据子类提供的配置初始化Fragment的行为参数，包括布局管理器、刷新头部、返回顶部按钮等
      */
     private fun initGlobalConfig() {
-        fragmentGlobalConfig = obtainGlobalConfig()
         if (fragmentGlobalConfig.backToTopDrawableRes > 0) {
             customBackTopDrawable =
                 ResourcesCompat.getDrawable(
@@ -198,9 +406,11 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
                     fragmentGlobalConfig.backToTopDrawableRes,
                     null
                 )
+            brlBackToTop?.setImageDrawable(customBackTopDrawable)
         }
         placeholderViewStyleConfig = fragmentGlobalConfig.placeholderViewStyleConfig
         adapter.setAutoLoadMoreTrigger(fragmentGlobalConfig.loadMoreWhenLeftItemCount)
+        adapter.setAdaptiveLoadMoreTrigger(fragmentGlobalConfig.adaptiveLoadMoreTrigger)
         brlSmartRefreshLayout?.setEnableRefresh(fragmentGlobalConfig.supportPullToRefresh)
         brlSmartRefreshLayout?.setRefreshHeader(fragmentGlobalConfig.refreshHeader)
 
@@ -228,54 +438,541 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
             .show()
     }
 
+    /**
+     * 隐藏骨架屏，没有显示时不处理
+     */
+    private fun hideSkeletonScreen() {
+        skeletonScreen?.hide()
+        skeletonScreen = null
+    }
+
     /**
      * 初始化数据观察者
-     * 监听ViewModel中的列表数据和UI事件，并根据变化更新UI状态
+     * 监听ViewModel中的列表状态，并在下一帧根据最新的状态更新UI
      */
     private fun initObserver() {
-        viewModel.listLiveData.observe(viewLifecycleOwner, Observer<List<Any>?> { listItems ->
-            hasLoadOnce = true
-            hideLoadingView()
-            // 在没有请求成功数据且是刷新状态且设置了展示骨架屏
-            if (!hasRequestSuccessOnce && viewModel.isRefresh && fragmentGlobalConfig.isShowSkeleton) {
-                skeletonScreen.hide()
+        viewLifecycleOwner.lifecycleScope.launch {
+            viewLifecycleOwner.repeatOnLifecycle(Lifecycle.State.STARTED) {
+                viewModel.pagingState.collect { state ->
+                    if (pendingState == null) {
+                        Choreographer.getInstance().postFrameCallback(renderFrameCallback)
+                    }
+                    pendingState = state
+                }
             }
-            listItems?.also {
-                brlSmartRefreshLayout?.visibility = View.VISIBLE
+        }
+    }
+
+    /**
+     * 渲染列表状态
+     *
+     * @param state 最新的列表状态
+     */
+    private fun renderState(state: PagingState) {
+        val lastState = renderedState
+        renderedState = state
+        // 只在状态变化、列表变化或者再次失败时刷新footer，避免覆盖空视图隐藏的footer
+        if (lastState == null || state.footerState != lastState.footerState ||
+            state.error !== lastState.error || state.listVersion != lastState.listVersion
+        ) {
+            state.footerState?.let { renderFooterState(it, state.items) }
+        }
+        if (lastState == null || state.headerState != lastState.headerState ||
+            state.isLoadingPrevious != lastState.isLoadingPrevious || state.listVersion != lastState.listVersion
+        ) {
+            state.headerState?.let { renderHeaderState(it) }
+        }
+        if (state.publishedVersion > renderedListVersion) {
+            renderPublishedList(state)
+        } else if (state.listVersion > renderedListVersion && !adapter.isDiffPending) {
+            // 刷新diff计算中时跳过局部变化，diff提交后统一补齐
+            renderListChanges(state)
+        }
+        // 合并刷新完成，新数据已经插入到列表开头
+        if (lastState != null && state.headMergeSerial != lastState.headMergeSerial) {
+            brlSmartRefreshLayout?.finishRefresh(state.headMergeCount >= 0)
+            frameMetricsCollector?.markPhase(FramePhase.REFRESH)
+            if (state.headMergeCount >= 0) {
+                onHeadMerged(state.headMergeCount)
+            }
+        }
+        // 列表提交之后再刷新footer和头部，与数据在同一帧展示
+        adapter.flushPendingUpdates()
+    }
+
+    /**
+     * 渲染整体下发的列表，刷新结束、骨架屏和空视图都在这里处理
+     *
+     * @param state 最新的列表状态
+     */
+    private fun renderPublishedList(state: PagingState) {
+        hasLoadOnce = true
+        if (fragmentGlobalConfig.lazyLoadOnResume && !state.isLoading) {
+            LazyLoadScheduler.onLoadFinished(this)
+        }
+        isEmptyViewShown = false
+        hideLoadingView()
+        // 在没有请求成功数据且是刷新状态且设置了展示骨架屏
+        if (!hasRequestSuccessOnce && state.isRefresh && skeletonScreen != null) {
+            hideSkeletonScreen()
+            frameMetricsCollector?.markPhase(FramePhase.SKELETON_SWAP)
+        } else {
+            frameMetricsCollector?.markPhase(FramePhase.REFRESH)
+        }
+        renderedListVersion = state.listVersion
+        state.items?.also {
+            brlSmartRefreshLayout?.visibility = View.VISIBLE
+            val diffCallback = fragmentGlobalConfig.refreshDiffCallback
+            if (diffCallback != null && state.isRefresh) {
+                adapter.submitItemsWithDiff(it, diffCallback) {
+                    // diff计算期间列表又发生了变化，直接渲染最新列表
+                    if (renderedListVersion != viewModel.listVersion) {
+                        renderCurrentItems()
+                    }
+                }
+            } else {
                 adapter.items = it
                 adapter.notifyDataSetChanged()
-                if (it.isEmpty()) {
-                    showErrorView(true)
-                }
-                hasRequestSuccessOnce = true
-            } ?: showErrorView(false)
-            brlSmartRefreshLayout?.finishRefresh()
-        })
+            }
+            if (it.isEmpty()) {
+                showErrorView(true)
+            } else if (!hasRequestSuccessOnce && fragmentGlobalConfig.preInflateViewHolderCount > 0) {
+                // 首屏布局完成后记录各类型的数量，作为下次预先创建的依据
+                brlRecyclerview?.post { recordViewTypeHistogram() }
+            }
+            hasRequestSuccessOnce = true
+        } ?: showErrorView(false)
+        brlSmartRefreshLayout?.finishRefresh()
+        if (!state.isLoading) {
+            pendingRestoreSnapshot?.let {
+                pendingRestoreSnapshot = null
+                scrollToRestoredAnchor(it, state.items)
+            }
+        }
+    }
+
+    /**
+     * 按进程被回收前保存的快照恢复列表，有保存的接口数据时不请求接口，否则只请求一次起始页
+     *
+     * @return 是否进行了恢复
+     */
+    private fun restorePagingSnapshot(): Boolean {
+        if (!fragmentGlobalConfig.restorePagingState) {
+            return false
+        }
+        val snapshot = viewModel.takeRestoredSnapshot() ?: return false
+        pendingRestoreSnapshot = snapshot
+        val pageData = snapshot.pageData
+        if (pageData == null) {
+            requestPage(true, snapshot.startPageIndex, true)
+            return true
+        }
+        startRefresh(true)
+        requestParams[LoadMoreListFragmentViewModel.KEY_PAGE] = snapshot.startPageIndex
+        requestParams[LoadMoreListFragmentViewModel.KEY_PAGE_SIZE] = fragmentGlobalConfig.pageSize
+        viewModel.submitRestoredPage(requestParams, pageData, ::requestPageFlow, responseListener)
+        return true
+    }
 
-        viewModel.eventLiveData.observe(viewLifecycleOwner) { event ->
-            event?.let {
-                when (it.eventType) {
-                    EntityUIEvent.EventType.LOADING ->
-                        adapter.setLoadMoreState(MultiTypeLoadMoreAdapter.LoadMoreItem.STATE_LOADING)
+    /**
+     * 恢复的列表渲染后滚动到保存的位置，优先按key查找，找不到时按位置
+     *
+     * @param snapshot 分页快照
+     * @param items 恢复的列表
+     */
+    private fun scrollToRestoredAnchor(snapshot: PagingSnapshot<T>, items: List<Any>?) {
+        if (items.isNullOrEmpty()) {
+            return
+        }
+        val position = snapshot.anchorKey?.let { viewModel.indexOfKey(it) }?.takeIf { it >= 0 }
+            ?: snapshot.anchorPosition.coerceIn(0, items.size - 1)
+        val adapterPosition = position + adapter.headerItemCount
+        when (val layoutManager = brlRecyclerview?.layoutManager) {
+            is LinearLayoutManager -> layoutManager.scrollToPositionWithOffset(adapterPosition, snapshot.anchorOffset)
+            is StaggeredGridLayoutManager -> layoutManager.scrollToPositionWithOffset(adapterPosition, snapshot.anchorOffset)
+        }
+    }
 
-                    EntityUIEvent.EventType.LOAD_MORE_FAILED ->
-                        adapter.setLoadMoreState(MultiTypeLoadMoreAdapter.LoadMoreItem.STATE_FAILED)
+    /**
+     * 依次应用上次渲染之后的局部变化，有遗漏时整体渲染最新列表
+     *
+     * @param state 最新的列表状态
+     */
+    private fun renderListChanges(state: PagingState) {
+        if (isEmptyViewShown) {
+            // 空视图替换了适配器中的数据，无法按区间应用，整体渲染
+            isEmptyViewShown = false
+            hideLoadingView()
+            brlSmartRefreshLayout?.visibility = View.VISIBLE
+            renderCurrentItems()
+        } else {
+            applyListChanges(state)
+        }
+        // 批量删除后列表为空
+        if (state.items?.isEmpty() == true) {
+            showEmptyView()
+        }
+    }
 
-                    EntityUIEvent.EventType.LOAD_FINISH -> {
-                        var realShowCount = 0
-                        getCurrentItems()?.let { items ->
-                            realShowCount = items.size
-                        }
-                        adapter.setLoadMoreState(
-                            if (realShowCount < fragmentGlobalConfig.minCountToShowLoadFinishView)
-                                MultiTypeLoadMoreAdapter.LoadMoreItem.STATE_GONE
-                            else
-                                MultiTypeLoadMoreAdapter.LoadMoreItem.STATE_NO_MORE_DATA
-                        )
+    /**
+     * 按版本顺序把局部变化应用到适配器
+     *
+     * @param state 最新的列表状态
+     */
+    private fun applyListChanges(state: PagingState) {
+        val changes = state.recentChanges
+        val firstIndex = changes.indexOfFirst { it.version == renderedListVersion + 1 }
+        if (firstIndex < 0) {
+            renderCurrentItems()
+            return
+        }
+        for (i in firstIndex until changes.size) {
+            val event = changes[i]
+            // 在列表开头插入数据（加载上一页）时保持当前可见内容的位置不变
+            val anchor = if (event.startIndex == 0 && event.removeCount == 0) captureScrollAnchor() else null
+            if (event.removeCount == 0 && event.items.isNotEmpty()) {
+                frameMetricsCollector?.markPhase(FramePhase.LOAD_MORE_INSERT)
+            }
+            if (!adapter.replaceItemsAndNotify(event.startIndex, event.removeCount, event.items, event.payload)) {
+                renderCurrentItems()
+                return
+            }
+            renderedListVersion = event.version
+            anchor?.let { restoreScrollAnchor(it, event.items.size) }
+        }
+    }
+
+    /**
+     * 渲染底部加载更多的状态
+     *
+     * @param footerState 底部状态
+     * @param items 当前的列表数据
+     */
+    private fun renderFooterState(footerState: EntityUIEvent.EventType, items: List<Any>?) {
+        frameMetricsCollector?.markPhase(FramePhase.FOOTER_UPDATE)
+        when (footerState) {
+            EntityUIEvent.EventType.LOADING ->
+                adapter.setLoadMoreState(MultiTypeLoadMoreAdapter.LoadMoreItem.STATE_LOADING)
+
+            EntityUIEvent.EventType.LOAD_MORE_FAILED ->
+                adapter.setLoadMoreState(MultiTypeLoadMoreAdapter.LoadMoreItem.STATE_FAILED)
+
+            EntityUIEvent.EventType.LOAD_FINISH -> {
+                val realShowCount = items?.size ?: 0
+                adapter.setLoadMoreState(
+                    if (realShowCount < fragmentGlobalConfig.minCountToShowLoadFinishView)
+                        MultiTypeLoadMoreAdapter.LoadMoreItem.STATE_GONE
+                    else
+                        MultiTypeLoadMoreAdapter.LoadMoreItem.STATE_NO_MORE_DATA
+                )
+            }
+        }
+    }
+
+    /**
+     * 渲染头部加载上一页的状态
+     *
+     * @param headerState 头部状态
+     */
+    private fun renderHeaderState(headerState: EntityUIEvent.EventType) {
+        adapter.setLoadPreviousState(
+            when (headerState) {
+                EntityUIEvent.EventType.LOADING -> MultiTypeLoadMoreAdapter.LoadMoreItem.STATE_LOADING
+                EntityUIEvent.EventType.LOAD_MORE_FAILED -> MultiTypeLoadMoreAdapter.LoadMoreItem.STATE_FAILED
+                EntityUIEvent.EventType.LOAD_FINISH -> MultiTypeLoadMoreAdapter.LoadMoreItem.STATE_GONE
+            }
+        )
+    }
+
+    /**
+     * 整体渲染ViewModel中的最新列表
+     */
+    @SuppressLint("NotifyDataSetChanged")
+    private fun renderCurrentItems() {
+        renderedListVersion = viewModel.listVersion
+        adapter.items = viewModel.pagingState.value.items ?: emptyList()
+        adapter.notifyDataSetChanged()
+    }
+
+    /**
+     * 记录第一个可见数据项的位置和偏移
+     *
+     * @return 位置和距离顶部的偏移，无法获取时返回null
+     */
+    private fun captureScrollAnchor(): Pair<Int, Int>? {
+        val recyclerView = brlRecyclerview ?: return null
+        val firstVisible = when (val layoutManager = recyclerView.layoutManager) {
+            is LinearLayoutManager -> layoutManager.findFirstVisibleItemPosition()
+            is StaggeredGridLayoutManager ->
+                layoutManager.findFirstVisibleItemPositions(null).minOrNull() ?: RecyclerView.NO_POSITION
+
+            else -> RecyclerView.NO_POSITION
+        }
+        if (firstVisible == RecyclerView.NO_POSITION) {
+            return null
+        }
+        // 跳过头部加载上一页的item，以第一个数据项为锚点
+        val position = firstVisible.coerceAtLeast(adapter.headerItemCount)
+        val view = recyclerView.layoutManager?.findViewByPosition(position) ?: return null
+        return Pair(position, view.top - recyclerView.paddingTop)
+    }
+
+    /**
+     * 在锚点之前插入数据后，滚动回原来的内容位置，避免视图跳动
+     *
+     * @param anchor captureScrollAnchor记录的位置和偏移
+     * @param insertedCount 插入的数量
+     */
+    private fun restoreScrollAnchor(anchor: Pair<Int, Int>, insertedCount: Int) {
+        val position = anchor.first + insertedCount
+        when (val layoutManager = brlRecyclerview?.layoutManager) {
+            is LinearLayoutManager -> layoutManager.scrollToPositionWithOffset(position, anchor.second)
+            is StaggeredGridLayoutManager -> layoutManager.scrollToPositionWithOffset(position, anchor.second)
+        }
+    }
+
+    /**
+     * 通知ViewModel当前的可见区域，窗口模式下用于淘汰和重新加载分页
+     */
+    private fun notifyVisibleRange() {
+        val first: Int
+        val last: Int
+        when (val layoutManager = brlRecyclerview?.layoutManager) {
+            is LinearLayoutManager -> {
+                first = layoutManager.findFirstVisibleItemPosition()
+                last = layoutManager.findLastVisibleItemPosition()
+            }
+
+            is StaggeredGridLayoutManager -> {
+                first = layoutManager.findFirstVisibleItemPositions(null).minOrNull() ?: -1
+                last = layoutManager.findLastVisibleItemPositions(null).maxOrNull() ?: -1
+            }
+
+            else -> return
+        }
+        // 转换为不包含头部item的数据位置
+        val headerCount = adapter.headerItemCount
+        viewModel.onVisibleRangeChanged(first - headerCount, last - headerCount)
+    }
+
+    /**
+     * 按注册的ItemViewBinder设置复用池中每种类型的缓存上限，不能共用的类型不缓存
+     *
+     * @param pool 复用池
+     */
+    private fun configureRecycledViewPool(pool: RecyclerView.RecycledViewPool) {
+        val types = adapter.types
+        for (viewType in 0 until types.size) {
+            val delegate = types.getType<Any>(viewType).delegate
+            val poolSize = delegate as? RecycledViewPoolSize
+            val maxSize = when {
+                poolSize == null -> fragmentGlobalConfig.recycledViewPoolMaxSize
+                poolSize.isShareable -> poolSize.maxRecycledViews
+                else -> 0
+            }
+            pool.setMaxRecycledViews(viewType, maxSize)
+        }
+    }
+
+    /**
+     * 在主线程空闲时为registerViewBinder注册的每种类型预先创建ViewHolder放入复用池，
+     * 每次空闲只创建一个，不影响正在进行的绘制和输入，复用池已满的类型直接跳过
+     *
+     * @param countPerType 每种类型预先创建的数量
+     */
+    protected fun prewarmRecycledViewPool(countPerType: Int) {
+        val plan = SparseIntArray()
+        obtainUserViewTypes().forEach { plan.put(it, countPerType) }
+        prewarmRecycledViewPool(plan)
+    }
+
+    /**
+     * 在主线程空闲时按计划预先创建ViewHolder放入复用池，复用池中已有足够数量的类型直接跳过
+     *
+     * @param plan key为item类型，value为复用池中该类型的目标数量
+     */
+    private fun prewarmRecycledViewPool(plan: SparseIntArray) {
+        val recyclerView = brlRecyclerview ?: return
+        cancelPrewarm()
+        val pool = recyclerView.recycledViewPool
+        var index = 0
+        val idleHandler = MessageQueue.IdleHandler {
+            while (index < plan.size()) {
+                val viewType = plan.keyAt(index)
+                val count = pool.getRecycledViewCount(viewType)
+                if (count < plan.valueAt(index)) {
+                    pool.putRecycledView(adapter.createViewHolder(recyclerView, viewType))
+                    // 数量没有增加说明已经达到复用池上限
+                    if (pool.getRecycledViewCount(viewType) > count) {
+                        return@IdleHandler true
                     }
                 }
+                index++
             }
+            prewarmIdleHandler = null
+            false
         }
+        prewarmIdleHandler = idleHandler
+        Looper.getMainLooper().queue.addIdleHandler(idleHandler)
+    }
+
+    /**
+     * 首次请求期间预先创建ViewHolder放入复用池，数据返回后只需要绑定数据，不需要在同一帧创建整屏的item
+     *
+     * ItemViewBinder实现BackgroundInflatable的类型在后台线程创建，其他类型在主线程空闲时创建，
+     * 后台创建失败时（例如item中的View依赖主线程Looper）剩余的部分也改为在主线程空闲时创建
+     *
+     * 创建的类型和数量优先使用上次首屏记录的各类型数量，没有记录时为registerViewBinder注册的每种类型创建countPerType个
+     *
+     * @param countPerType 没有记录时每种类型预先创建的数量
+     */
+    private fun preInflateViewHolders(countPerType: Int) {
+        val recyclerView = brlRecyclerview ?: return
+        if (preInflateJob?.isActive == true) {
+            return
+        }
+        val pool = recyclerView.recycledViewPool
+        val userViewTypes = obtainUserViewTypes()
+        val plan = SparseIntArray()
+        val histogram = loadViewTypeHistogram()
+        if (histogram != null) {
+            for (i in 0 until histogram.size()) {
+                // 注册的类型有变化时忽略已经不存在的类型
+                if (histogram.keyAt(i) in userViewTypes) {
+                    plan.put(histogram.keyAt(i), histogram.valueAt(i))
+                }
+            }
+        }
+        if (plan.size() == 0) {
+            userViewTypes.forEach { plan.put(it, countPerType) }
+        }
+        // 主线程空闲时创建会取消onActivityCreated中的预先创建，合并其数量
+        val prewarmCount = fragmentGlobalConfig.prewarmViewHolderCount
+        if (prewarmCount > 0) {
+            userViewTypes.forEach { plan.put(it, maxOf(plan.get(it), prewarmCount)) }
+        }
+        if (plan.size() == 0) {
+            return
+        }
+        val backgroundPlan = SparseIntArray()
+        for (i in 0 until plan.size()) {
+            val viewType = plan.keyAt(i)
+            if (fragmentGlobalConfig.sharedRecycledViewPool == null) {
+                pool.setMaxRecycledViews(viewType, maxOf(plan.valueAt(i), DEFAULT_MAX_RECYCLED_VIEWS))
+            }
+            if (adapter.types.getType<Any>(viewType).delegate is BackgroundInflatable) {
+                backgroundPlan.put(viewType, plan.valueAt(i))
+            }
+        }
+        // 没有声明可以在后台创建的类型在主线程空闲时创建
+        if (backgroundPlan.size() < plan.size()) {
+            prewarmRecycledViewPool(plan)
+        }
+        if (backgroundPlan.size() == 0) {
+            return
+        }
+        preInflateJob = viewLifecycleOwner.lifecycleScope.launch {
+            for (i in 0 until backgroundPlan.size()) {
+                val viewType = backgroundPlan.keyAt(i)
+                val count = backgroundPlan.valueAt(i)
+                while (pool.getRecycledViewCount(viewType) < count) {
+                    val holder = withContext(Dispatchers.Default) {
+                        runCatching { adapter.createViewHolder(recyclerView, viewType) }.getOrNull()
+                    }
+                    if (holder == null) {
+                        prewarmRecycledViewPool(plan)
+                        return@launch
+                    }
+                    val before = pool.getRecycledViewCount(viewType)
+                    pool.putRecycledView(holder)
+                    // 数量没有增加说明已经达到复用池上限
+                    if (pool.getRecycledViewCount(viewType) == before) {
+                        break
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 记录当前屏幕上各类型item的数量，同时保存到SharedPreferences，冷启动后仍然可以使用
+     */
+    private fun recordViewTypeHistogram() {
+        val recyclerView = brlRecyclerview ?: return
+        val userViewTypes = obtainUserViewTypes()
+        val histogram = SparseIntArray()
+        for (i in 0 until recyclerView.childCount) {
+            val viewType = recyclerView.getChildViewHolder(recyclerView.getChildAt(i)).itemViewType
+            if (viewType in userViewTypes) {
+                histogram.put(viewType, histogram.get(viewType) + 1)
+            }
+        }
+        if (histogram.size() == 0) {
+            return
+        }
+        viewTypeHistograms[javaClass.name] = histogram
+        val value = (0 until histogram.size()).joinToString(",") {
+            "${histogram.keyAt(it)}:${histogram.valueAt(it)}"
+        }
+        recyclerView.context.applicationContext
+            .getSharedPreferences(VIEW_TYPE_HISTOGRAM_PREFS, Context.MODE_PRIVATE)
+            .edit()
+            .putString(javaClass.name, value)
+            .apply()
+    }
+
+    /**
+     * 读取上次首屏各类型item的数量，进程内没有记录时从SharedPreferences读取
+     *
+     * @return 各类型的数量，没有记录时返回null
+     */
+    private fun loadViewTypeHistogram(): SparseIntArray? {
+        viewTypeHistograms[javaClass.name]?.let { return it }
+        val value = brlRecyclerview?.context?.applicationContext
+            ?.getSharedPreferences(VIEW_TYPE_HISTOGRAM_PREFS, Context.MODE_PRIVATE)
+            ?.getString(javaClass.name, null)
+            ?: return null
+        val histogram = SparseIntArray()
+        value.split(",").forEach { entry ->
+            val parts = entry.split(":")
+            val viewType = parts.getOrNull(0)?.toIntOrNull()
+            val count = parts.getOrNull(1)?.toIntOrNull()
+            if (viewType != null && count != null && count > 0) {
+                histogram.put(viewType, count)
+            }
+        }
+        if (histogram.size() == 0) {
+            return null
+        }
+        viewTypeHistograms[javaClass.name] = histogram
+        return histogram
+    }
+
+    /**
+     * 获取registerViewBinder注册的item类型，不包含加载更多、空视图和占位等内置类型
+     *
+     * @return 类型列表
+     */
+    private fun obtainUserViewTypes(): List<Int> {
+        return (0 until adapter.types.size).filter { viewType ->
+            when (adapter.types.getType<Any>(viewType).delegate) {
+                is MultiTypeLoadMoreAdapter.AbstractItemViewBinder<*>,
+                is EmptyViewBinder,
+                is PagePlaceholderViewBinder -> false
+
+                else -> true
+            }
+        }
+    }
+
+    /**
+     * 取消未完成的预先创建ViewHolder任务
+     */
+    private fun cancelPrewarm() {
+        prewarmIdleHandler?.let {
+            Looper.getMainLooper().queue.removeIdleHandler(it)
+        }
+        prewarmIdleHandler = null
     }
 
     /**
@@ -289,7 +986,20 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
                 placeholderViewStyleConfig
             )
         )
+        adapter.register(
+            PagePlaceholderViewBinder.PagePlaceholderItem::class.java,
+            PagePlaceholderViewBinder()
+        )
         registerViewBinder(adapter)
+        // 列表中的空视图占满一行
+        adapter.setGridSpanSizes(
+            mapOf(EmptyViewBinder.EmptyItem::class.java to fragmentGlobalConfig.spanCount) +
+                    fragmentGlobalConfig.gridSpanSizes
+        )
+        adapter.setLoadPreviousEnabled(fragmentGlobalConfig.supportLoadPrevious)
+        if (fragmentGlobalConfig.useStableIds) {
+            adapter.enableStableIds(fragmentGlobalConfig.refreshDiffCallback, fragmentGlobalConfig.debug)
+        }
         adapter.setLoadMoreViewBinder(
             CommonLoadMoreViewBinder(
                 fragmentGlobalConfig.loadMoreJsonRes,
@@ -306,11 +1016,25 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
             override fun onLoadMore() {
                 requestDatas(false)
             }
+
+            override val expectedPageLatencyMillis: Long
+                get() = viewModel.pageLatencyP90Millis
+
+            override val isLoadingPrevious: Boolean
+                get() = viewModel.isLoadingPrevious
+
+            override fun onLoadPrevious() {
+                requestPreviousDatas()
+            }
         })
         adapter.setLoadMoreRetryListener(object : MultiTypeLoadMoreAdapter.ILoadMoreRetryListener {
             override fun retry() {
                 requestDatas(false)
             }
+
+            override fun retryPrevious() {
+                requestPreviousDatas()
+            }
         })
     }
 
@@ -331,13 +1055,65 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
      */
     override fun setUserVisibleHint(isVisibleToUser: Boolean) {
         super.setUserVisibleHint(isVisibleToUser)
-        if (isVisibleToUser && isViewCreated) {
+        if (isVisibleToUser && isViewCreated && !fragmentGlobalConfig.lazyLoadOnResume) {
             if (!hasLoadOnce) {
                 requestDatas(true)
             }
         }
     }
 
+    /**
+     * 恢复到前台
+     * 懒加载模式下可见时还没有加载过则立即请求，优先于其他列表的预加载
+     */
+    override fun onResume() {
+        super.onResume()
+        if (fragmentGlobalConfig.lazyLoadOnResume && !hasLoadOnce && !isLazyLoadStarted) {
+            LazyLoadScheduler.startForeground(this) { startLazyLoad() }
+        }
+        startFrameMetrics()
+    }
+
+    /**
+     * 离开前台
+     * 结束本次帧耗时统计并回调
+     */
+    override fun onPause() {
+        super.onPause()
+        stopFrameMetrics()
+    }
+
+    /**
+     * 开始收集帧耗时，只在配置了frameMetricsListener时生效
+     */
+    private fun startFrameMetrics() {
+        if (fragmentGlobalConfig.frameMetricsListener == null || !isViewCreated) {
+            return
+        }
+        val window = activity?.window ?: return
+        val collector = frameMetricsCollector
+            ?: FrameMetricsCollector(fragmentGlobalConfig.frameMetricsScreenName ?: javaClass.name).also {
+                frameMetricsCollector = it
+            }
+        collector.attach(window, brlRecyclerview?.display?.refreshRate ?: 0f)
+    }
+
+    /**
+     * 停止收集帧耗时，回调本次前台期间的统计
+     */
+    private fun stopFrameMetrics() {
+        val report = frameMetricsCollector?.detach() ?: return
+        fragmentGlobalConfig.frameMetricsListener?.onFrameMetrics(report)
+    }
+
+    /**
+     * 懒加载模式下开始首次请求
+     */
+    private fun startLazyLoad() {
+        isLazyLoadStarted = true
+        requestDatas(true)
+    }
+
     /**
      * 销毁视图时的清理工作
      * 取消网络请求，重置视图创建标志位
@@ -345,7 +1121,24 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
     override fun onDestroyView() {
         super.onDestroyView()
         isViewCreated = false
-        viewModel.cancelRequest()
+        isBackTopShown = false
+        isScrollingBackToTop = false
+        stopFrameMetrics()
+        frameMetricsCollector = null
+        if (fragmentGlobalConfig.lazyLoadOnResume) {
+            // 请求会被取消，没有加载完成时下次重新排队
+            LazyLoadScheduler.remove(this)
+            if (!hasLoadOnce) {
+                isLazyLoadStarted = false
+            }
+        }
+        Choreographer.getInstance().removeFrameCallback(renderFrameCallback)
+        pendingState = null
+        adapter.cancelPendingUpdates()
+        cancelPrewarm()
+        preInflateJob?.cancel()
+        preInflateJob = null
+        viewModel.onViewDestroyed()
     }
 
     /**
@@ -369,6 +1162,7 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
      */
     @SuppressLint("NotifyDataSetChanged")
     private fun showEmptyView() {
+        isEmptyViewShown = true
         if (fragmentGlobalConfig.emptyViewShowInRecyclerView) {
             adapter.items = arrayListOf(EmptyViewBinder.EmptyItem())
             adapter.notifyDataSetChanged()
@@ -382,37 +1176,76 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
     /**
      * 控制返回顶部按钮的显示和隐藏
      * 根据RecyclerView的滚动位置决定是否显示返回顶部按钮，并添加平滑动画效果
+     * 滚动过程中每帧都会调用，只读取最后一个子View的位置，状态不变时不做任何操作
      */
     private fun takeControlBackTopView() {
-        if (brlRecyclerview?.layoutManager is LinearLayoutManager) {
-            val visibleItemPosition =
-                (brlRecyclerview?.layoutManager as LinearLayoutManager).findLastVisibleItemPosition()
-            val shouldShow = visibleItemPosition > fragmentGlobalConfig.backToTopWhenShowItemCount
-            
-            brlBackToTop?.let { backButton ->
-                if (shouldShow && backButton.visibility != View.VISIBLE) {
-                    // 显示按钮并添加渐入动画
-                    backButton.visibility = View.VISIBLE
-                    backButton.alpha = 0f
-                    backButton.animate()
-                        .alpha(1f)
-                        .setDuration(300)
-                        .start()
-                } else if (!shouldShow && backButton.visibility == View.VISIBLE) {
-                    // 隐藏按钮并添加渐出动画
-                    backButton.animate()
-                        .alpha(0f)
-                        .setDuration(200)
-                        .withEndAction {
-                            backButton.visibility = View.GONE
-                        }
-                        .start()
-                }
-                
-                // 设置自定义图标
-                customBackTopDrawable?.let { drawable ->
-                    backButton.setImageDrawable(drawable)
+        val layoutManager = brlRecyclerview?.layoutManager ?: return
+        val backButton = brlBackToTop ?: return
+        if (isScrollingBackToTop) {
+            return
+        }
+        val childCount = layoutManager.childCount
+        val lastPosition = if (childCount > 0) {
+            layoutManager.getChildAt(childCount - 1)?.let { layoutManager.getPosition(it) } ?: RecyclerView.NO_POSITION
+        } else {
+            RecyclerView.NO_POSITION
+        }
+        val shouldShow = lastPosition > fragmentGlobalConfig.backToTopWhenShowItemCount
+        if (shouldShow == isBackTopShown) {
+            return
+        }
+        isBackTopShown = shouldShow
+        if (shouldShow) {
+            // 显示按钮并添加渐入动画
+            backButton.visibility = View.VISIBLE
+            backButton.alpha = 0f
+            backButton.animate()
+                .alpha(1f)
+                .setDuration(300)
+                .start()
+        } else {
+            // 隐藏按钮并添加渐出动画
+            backButton.animate()
+                .alpha(0f)
+                .setDuration(200)
+                .withEndAction {
+                    backButton.visibility = View.GONE
                 }
+                .start()
+        }
+    }
+
+    /**
+     * 返回顶部
+     * 距离顶部较远时先直接跳到距离顶部backToTopJumpThreshold个item的位置，再平滑滚动剩下的距离，
+     * 避免平滑滚动逐个绑定和布局中间所有的item
+     */
+    private fun scrollBackToTop() {
+        val recyclerView = brlRecyclerview ?: return
+        val layoutManager = recyclerView.layoutManager ?: return
+        recyclerView.stopScroll()
+        isScrollingBackToTop = true
+        val childCount = layoutManager.childCount
+        val firstPosition = if (childCount > 0) {
+            layoutManager.getChildAt(0)?.let { layoutManager.getPosition(it) } ?: 0
+        } else {
+            0
+        }
+        // 未配置时按两屏的item数量计算
+        val threshold = if (fragmentGlobalConfig.backToTopJumpThreshold > 0) {
+            fragmentGlobalConfig.backToTopJumpThreshold
+        } else {
+            maxOf(childCount, 1) * 2
+        }
+        if (firstPosition <= threshold) {
+            recyclerView.smoothScrollToPosition(0)
+            return
+        }
+        layoutManager.scrollToPosition(threshold)
+        // 跳转后的布局完成后再开始平滑滚动，否则平滑滚动会基于跳转前的子View计算
+        recyclerView.doOnNextLayout {
+            if (brlRecyclerview === recyclerView) {
+                recyclerView.smoothScrollToPosition(0)
             }
         }
     }
@@ -433,6 +1266,16 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
 
     }
 
+    /**
+     * 合并刷新完成回调
+     * 子类可重写此方法展示"N条新内容"之类的提示
+     *
+     * @param newItemCount 插入到列表开头的新数据数量
+     */
+    open fun onHeadMerged(newItemCount: Int) {
+
+    }
+
     /**
      * 点击事件处理
      * 处理返回顶部按钮的点击事件，添加平滑滚动动画
@@ -442,10 +1285,11 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
     override fun onClick(v: View?) {
         when (v?.id) {
             R.id.brlBackToTop -> {
-                // 平滑滚动到顶部
-                brlRecyclerview?.smoothScrollToPosition(0)
-                
+                // 距离较远时先跳到顶部附近，再平滑滚动到顶部
+                scrollBackToTop()
+
                 // 添加按钮隐藏动画
+                isBackTopShown = false
                 brlBackToTop?.let { backButton ->
                     backButton.animate()
                         .alpha(0f)
@@ -541,7 +1385,8 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
 
     /**
      * 获取适配器所需的数据列表
-     * 根据接口返回的数据结构，处理并返回适配器需要的数据列表
+     * 根据接口返回的数据结构，处理并返回适配器需要的数据列表，在FragmentGlobalConfig.responseDispatcher上执行，
+     * 默认不在主线程，实现需要线程安全；加载更多时同一份数据可能被处理多次，不要在这里产生副作用
      * 
      * @param response 接口响应数据
      * @param currentItems 当前适配器中的数据列表
@@ -554,6 +1399,16 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
         isRefresh: Boolean
     ): List<Any>
 
+    /**
+     * 提供挂起版本的数据处理监听，需要在转换数据时进行异步操作的子类可以重写
+     * 返回null时使用本类实现的同步方法，两种方式都在FragmentGlobalConfig.responseDispatcher上执行
+     *
+     * @return 挂起版本的数据处理监听
+     */
+    protected open fun obtainResponseSuspendListener(): OnProcessResponseSuspendListener<T>? {
+        return null
+    }
+
     /**
      * 请求数据的抽象方法
      * 子类需要实现此方法来定义具体的数据请求逻辑
@@ -565,11 +1420,52 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
 
     /**
      * 获取当前的数据列表
+     * 窗口模式下不包含被淘汰分页的占位数据，此时位置可能与适配器中的位置不一致
      * 
-     * @return 当前适配器中的数据列表
+     * @return 当前的数据列表
      */
     protected fun getCurrentItems(): List<Any>? {
-        return viewModel.listLiveData.value
+        val items = viewModel.pagingState.value.items ?: return null
+        if (fragmentGlobalConfig.maxResidentPages > 0) {
+            return items.filterNot { it is PagePlaceholderViewBinder.PagePlaceholderItem }
+        }
+        return items
+    }
+
+    /**
+     * 获取加载更多触发时合并到进行中请求的次数
+     *
+     * @return 合并次数
+     */
+    protected fun getJoinedRequestCount(): Int {
+        return viewModel.joinedRequestCount
+    }
+
+    /**
+     * 获取进行中请求被刷新抢占取消的次数
+     *
+     * @return 抢占次数
+     */
+    protected fun getPreemptedRequestCount(): Int {
+        return viewModel.preemptedRequestCount
+    }
+
+    /**
+     * 获取自适应触发加载更多使用的提前量，即最近分页请求耗时的p90
+     *
+     * @return 提前量，单位毫秒，没有耗时数据时为0
+     */
+    protected fun getLoadMoreLeadTimeMillis(): Long {
+        return adapter.getLoadMoreLeadTimeMillis()
+    }
+
+    /**
+     * 获取最近一次自适应触发加载更多时估算的到达列表末尾的时间，用于调整提前量
+     *
+     * @return 估算的时间，单位毫秒，-1表示还没有触发过
+     */
+    protected fun getLastTimeToEndMillis(): Long {
+        return adapter.getLastTimeToEndMillis()
     }
 
     /**
@@ -588,7 +1484,7 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
      * @param items 新的数据列表
      */
     protected fun updateCurrentItems(items: List<Any>?) {
-        viewModel.listLiveData.value = items
+        viewModel.updateItems(items)
     }
 
     /**
@@ -599,35 +1495,93 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
      * @param showProgress 是否显示加载进度，默认为true
      */
     protected fun requestDatas(isRefresh: Boolean, showProgress: Boolean = true) {
-        viewModel.isRefresh = isRefresh
-        val pageIndex: Int = if (isRefresh) {
-            onRefreshDatas()
-            if (showProgress) {
-                showLoadingView()
-                if (fragmentGlobalConfig.isShowSkeleton) {
-                    if (adapter.items.isEmpty() && !hasRequestSuccessOnce) {
-                        showSkeletonScreen()
-                    } else {
-                        skeletonScreen.hide()
-                    }
-                }
-            }
-            1
-        } else {
-            viewModel.currentPageIndex + 1
+        requestPage(isRefresh, if (isRefresh) 1 else viewModel.currentPageIndex + 1, showProgress)
+    }
+
+    /**
+     * 合并刷新：只请求比当前第一项更新的数据并插入到列表开头，保留已加载的页和滑动位置
+     * 请求参数中的LoadMoreListFragmentViewModel.KEY_TOP_KEY为当前第一项的key
+     *
+     * @return false表示无法合并（列表为空、没有key或者正在刷新），需要按普通刷新处理
+     */
+    protected fun requestHeadMerge(): Boolean {
+        val params = HashMap(requestParams).apply {
+            put(LoadMoreListFragmentViewModel.KEY_PAGE, 1)
+            put(LoadMoreListFragmentViewModel.KEY_PAGE_SIZE, fragmentGlobalConfig.pageSize)
         }
+        return viewModel.requestHeadMerge(params, ::requestPageFlow, responseListener)
+    }
 
-        requestParams["page"] = pageIndex
-        requestParams["pageSize"] = fragmentGlobalConfig.pageSize
+    /**
+     * 从指定页开始请求数据，用于直接打开列表中间的位置，配合supportLoadPrevious向前加载
+     *
+     * @param pageIndex 起始页码
+     * @param showProgress 是否显示加载进度，默认为true
+     */
+    protected fun requestDatasFromPage(pageIndex: Int, showProgress: Boolean = true) {
+        requestPage(true, pageIndex, showProgress)
+    }
+
+    /**
+     * 加载已加载的最小页码的上一页，插入到列表开头
+     */
+    protected fun requestPreviousDatas() {
+        val pageIndex = viewModel.firstLoadedPageIndex - 1
+        if (!fragmentGlobalConfig.supportLoadPrevious || pageIndex < fragmentGlobalConfig.firstPageStartFrom) {
+            return
+        }
+        val params = HashMap(requestParams).apply {
+            put(LoadMoreListFragmentViewModel.KEY_PAGE, pageIndex)
+            put(LoadMoreListFragmentViewModel.KEY_PAGE_SIZE, fragmentGlobalConfig.pageSize)
+        }
+        viewModel.requestPreviousData(params, ::requestData, responseListener)
+    }
+
+    /**
+     * 请求指定页的数据
+     *
+     * @param isRefresh 是否为刷新操作
+     * @param pageIndex 请求的页码
+     * @param showProgress 是否显示加载进度
+     */
+    private fun requestPage(isRefresh: Boolean, pageIndex: Int, showProgress: Boolean) {
+        if (isRefresh) {
+            startRefresh(showProgress)
+        }
+
+        requestParams[LoadMoreListFragmentViewModel.KEY_PAGE] = pageIndex
+        requestParams[LoadMoreListFragmentViewModel.KEY_PAGE_SIZE] = fragmentGlobalConfig.pageSize
 
         viewModel.requestData(
             requestParams,
-            ::requestData,
+            ::requestPageFlow,
             isRefresh,
-            this@BaseRefreshLoadListFragment,
+            responseListener,
         )
     }
 
+    /**
+     * 刷新开始时的处理：回调onRefreshDatas、预先创建ViewHolder、显示加载进度和骨架屏
+     *
+     * @param showProgress 是否显示加载进度
+     */
+    private fun startRefresh(showProgress: Boolean) {
+        onRefreshDatas()
+        if (!hasRequestSuccessOnce && fragmentGlobalConfig.preInflateViewHolderCount > 0) {
+            preInflateViewHolders(fragmentGlobalConfig.preInflateViewHolderCount)
+        }
+        if (showProgress) {
+            showLoadingView()
+            if (fragmentGlobalConfig.isShowSkeleton) {
+                if (adapter.items.isEmpty() && !hasRequestSuccessOnce) {
+                    showSkeletonScreen()
+                } else {
+                    hideSkeletonScreen()
+                }
+            }
+        }
+    }
+
     /**
      * 加载重试回调
      * 当加载失败时点击重试触发此方法
@@ -645,19 +1599,26 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
         requestDatas(true)
     }
 
+    /**
+     * 批量修改数据列表
+     * 插入、删除、移动和更新合并为尽量少的区间刷新，在下一帧一次性应用到RecyclerView，如果修改后列表为空则显示空视图
+     *
+     * @param block 修改操作，位置为数据位置，不包含头部加载上一页的item
+     */
+    protected fun mutateItems(block: ListMutation.() -> Unit) {
+        viewModel.mutateItems(block)
+    }
+
     /**
      * 删除指定位置的数据项
      * 删除成功后会自动刷新RecyclerView，如果删除后列表为空则显示空视图
      * 
-     * @param position 要删除的数据项位置
+     * @param position 要删除的数据项位置，不包含头部加载上一页的item
      */
     protected fun removeItem(position: Int) {
-        if (position in 0 until adapter.items.size) {
-            val items = adapter.items as MutableList<Any>
-            items.removeAt(position)
-            adapter.notifyItemRemoved(position)
-            if (items.size == 1) {
-                showEmptyView()
+        mutateItems {
+            if (position in 0 until size) {
+                remove(position)
             }
         }
     }
@@ -666,14 +1627,72 @@ abstract class BaseRefreshLoadListFragment<T> : CommonFragment(), View.OnClickLi
      * 更新指定位置的数据项
      * 更新成功后会自动刷新对应位置的RecyclerView项
      * 
-     * @param position 要更新的数据项位置
+     * @param position 要更新的数据项位置，不包含头部加载上一页的item
      * @param item 新的数据项
+     * @param payload 变化的内容，传给ItemViewBinder.onBindViewHolder(holder, item, payloads)只更新变化的字段，
+     * 为null时完整重新绑定
      */
-    protected fun updateItem(position: Int, item: Any) {
-        if (position in 0 until adapter.items.size) {
-            (adapter.items as MutableList<Any>)[position] = item
-            adapter.notifyItemChanged(position)
+    protected fun updateItem(position: Int, item: Any, payload: Any? = null) {
+        mutateItems {
+            if (position in 0 until size) {
+                update(position, item, payload)
+            }
         }
     }
 
+    /**
+     * 按key查找数据项的位置
+     * key优先使用KeyedItem.itemKey，其次使用FragmentGlobalConfig.refreshDiffCallback.getItemKey，
+     * 索引随列表变化增量维护，不需要每次遍历列表
+     *
+     * @param key 数据项的key
+     * @return 数据位置，不包含头部加载上一页的item，没有找到时返回-1
+     */
+    protected fun findItemPositionByKey(key: Any): Int {
+        return viewModel.indexOfKey(key)
+    }
+
+    /**
+     * 按key更新数据项，适用于推送等只知道数据标识的场景
+     *
+     * @param key 数据项的key
+     * @param item 新的数据项
+     * @param payload 变化的内容，为null时完整重新绑定
+     * @return 是否找到并更新
+     */
+    protected fun updateItemByKey(key: Any, item: Any, payload: Any? = null): Boolean {
+        val position = findItemPositionByKey(key)
+        if (position < 0) {
+            return false
+        }
+        updateItem(position, item, payload)
+        return true
+    }
+
+    /**
+     * 按key删除数据项，如果删除后列表为空则显示空视图
+     *
+     * @param key 数据项的key
+     * @return 是否找到并删除
+     */
+    protected fun removeItemByKey(key: Any): Boolean {
+        val position = findItemPositionByKey(key)
+        if (position < 0) {
+            return false
+        }
+        removeItem(position)
+        return true
+    }
+
+    companion object {
+        // RecyclerView复用池默认每种类型缓存的数量
+        private const val DEFAULT_MAX_RECYCLED_VIEWS = 5
+
+        // 保存各列表上次首屏item类型数量的SharedPreferences名称
+        private const val VIEW_TYPE_HISTOGRAM_PREFS = "pageload_view_type_histogram"
+
+        // 各列表上次首屏的item类型数量，key为Fragment类名，作为SharedPreferences的内存缓存
+        private val viewTypeHistograms = HashMap<String, SparseIntArray>()
+    }
+
 }
\ No newline at end of file
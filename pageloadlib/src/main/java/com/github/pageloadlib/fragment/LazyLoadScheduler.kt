@@ -0,0 +1,88 @@
+package com.github.pageloadlib.fragment
+
+import java.util.IdentityHashMap
+
+/**
+ * 懒加载调度：可见（RESUMED）的列表立即加载，其他已创建但不可见的列表排队在后台预加载，
+ * 有可见列表正在首次加载时暂停预加载，同时进行的预加载数量不超过上限
+ *
+ * 只在主线程调用
+ */
+internal object LazyLoadScheduler {
+
+    private class Task(val owner: Any, val start: () -> Unit)
+
+    // 等待预加载的列表，按创建顺序排列，ViewPager中先创建的通常是相邻的tab
+    private val pending = ArrayList<Task>()
+
+    // 正在预加载的列表
+    private val preloading = IdentityHashMap<Any, Unit>()
+
+    // 正在首次加载的可见列表
+    private val foreground = IdentityHashMap<Any, Unit>()
+
+    /**
+     * 同时进行的预加载数量上限，0表示不预加载，只在可见时加载
+     */
+    var maxConcurrentPreloads = 1
+
+    /**
+     * 加入预加载队列
+     *
+     * @param owner 列表的标识
+     * @param start 开始加载
+     */
+    fun enqueue(owner: Any, start: () -> Unit) {
+        if (pending.any { it.owner === owner } || preloading.containsKey(owner) || foreground.containsKey(owner)) {
+            return
+        }
+        pending.add(Task(owner, start))
+        dispatch()
+    }
+
+    /**
+     * 列表变为可见，立即加载，优先于所有预加载
+     *
+     * @return false表示该列表已经在预加载中，不需要再次加载
+     */
+    fun startForeground(owner: Any, start: () -> Unit): Boolean {
+        pending.removeAll { it.owner === owner }
+        if (preloading.containsKey(owner)) {
+            return false
+        }
+        foreground[owner] = Unit
+        start()
+        return true
+    }
+
+    /**
+     * 首次加载结束（成功或失败），释放占用的名额
+     */
+    fun onLoadFinished(owner: Any) {
+        val removed = foreground.remove(owner) != null || preloading.remove(owner) != null
+        if (removed) {
+            dispatch()
+        }
+    }
+
+    /**
+     * 列表视图销毁，移出队列并释放占用的名额
+     */
+    fun remove(owner: Any) {
+        pending.removeAll { it.owner === owner }
+        foreground.remove(owner)
+        preloading.remove(owner)
+        dispatch()
+    }
+
+    private fun dispatch() {
+        if (foreground.isNotEmpty()) {
+            return
+        }
+        while (preloading.size < maxConcurrentPreloads && pending.isNotEmpty()) {
+            val task = pending.removeAt(0)
+            preloading[task.owner] = Unit
+            task.start()
+        }
+    }
+}
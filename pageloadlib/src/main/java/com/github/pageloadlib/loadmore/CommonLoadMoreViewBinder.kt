@@ -40,7 +40,8 @@ class CommonLoadMoreViewBinder(
                     }
                 }
             }
-            LayoutManagerType.LINEAR -> {
+            // 网格布局下由SpanSizeLookup保证占满一行
+            LayoutManagerType.LINEAR, LayoutManagerType.GRID -> {
                 footer.layoutParams = RecyclerView.LayoutParams(
                     ViewGroup.LayoutParams.MATCH_PARENT,
                     ViewGroup.LayoutParams.WRAP_CONTENT
@@ -0,0 +1,29 @@
+package com.github.pageloadlib.loadmore
+
+/**
+ * 刷新时计算新旧列表差异所需的回调
+ */
+interface ItemDiffCallback {
+
+    /**
+     * 获取item的唯一标识，key相同视为同一个item
+     * @param item 列表数据
+     * @return 唯一标识，返回null表示无法识别，视为不同的item
+     */
+    fun getItemKey(item: Any): Any?
+
+    /**
+     * 判断同一个item的内容是否发生变化，默认使用equals比较
+     * @param oldItem 旧数据
+     * @param newItem 新数据
+     */
+    fun areContentsTheSame(oldItem: Any, newItem: Any): Boolean = oldItem == newItem
+
+    /**
+     * 同一个item内容变化时的payload，非null时ItemViewBinder可以在onBindViewHolder(holder, item, payloads)中
+     * 只更新变化的字段，默认返回null表示完整重新绑定
+     * @param oldItem 旧数据
+     * @param newItem 新数据
+     */
+    fun getChangePayload(oldItem: Any, newItem: Any): Any? = null
+}
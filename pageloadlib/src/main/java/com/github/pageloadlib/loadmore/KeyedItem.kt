@@ -0,0 +1,13 @@
+package com.github.pageloadlib.loadmore
+
+/**
+ * 带唯一标识的列表数据，开启稳定ID后adapter根据该标识生成item id
+ * 没有实现该接口的数据使用ItemDiffCallback.getItemKey获取标识
+ */
+interface KeyedItem {
+
+    /**
+     * 唯一标识，同一类型的数据之间不能重复，数据内容变化时保持不变
+     */
+    val itemKey: Any
+}
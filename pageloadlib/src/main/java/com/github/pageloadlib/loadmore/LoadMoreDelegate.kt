@@ -1,5 +1,6 @@
 package com.github.pageloadlib.loadmore
 
+import android.os.SystemClock
 import androidx.recyclerview.widget.GridLayoutManager
 import androidx.recyclerview.widget.LinearLayoutManager
 import androidx.recyclerview.widget.RecyclerView
@@ -27,12 +28,60 @@ class LoadMoreDelegate(loadMoreObservable: LoadMoreObservable) {
         endlessScrollListener.mVisibleThreshold = visibleThreshold
     }
 
+    /**
+     * 开启自适应触发：根据滑动速度估算到达列表末尾的时间，小于分页请求耗时的p90时触发加载更多，
+     * 还没有耗时数据时使用固定的visibleThreshold
+     */
+    fun setAdaptiveTrigger(adaptive: Boolean) {
+        endlessScrollListener.adaptiveTrigger = adaptive
+    }
+
+    /**
+     * 自适应触发使用的提前量，即最近分页请求耗时的p90，单位毫秒
+     */
+    fun getLeadTimeMillis(): Long {
+        return endlessScrollListener.leadTimeMillis
+    }
+
+    /**
+     * 最近一次自适应触发时估算的到达列表末尾的时间，单位毫秒，-1表示还没有触发过
+     */
+    fun getLastTimeToEndMillis(): Long {
+        return endlessScrollListener.lastTimeToEndMillis
+    }
+
     class EndlessScrollListener(loadMoreObservable: LoadMoreObservable) :
         RecyclerView.OnScrollListener() {
         var mVisibleThreshold = 6
+        var adaptiveTrigger = false
+        var leadTimeMillis = 0L
+            private set
+        var lastTimeToEndMillis = -1L
+            private set
+
+        // 平滑后的滑动速度，单位像素/毫秒，向上滑动为负
+        private var scrollVelocity = 0f
+        private var lastScrollTime = 0L
         private val loadMoreObservable: LoadMoreObservable?
+
+        override fun onScrollStateChanged(recyclerView: RecyclerView, newState: Int) {
+            if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                scrollVelocity = 0f
+                lastScrollTime = 0L
+            }
+        }
+
         override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
-            if (dy < 0 || loadMoreObservable == null || loadMoreObservable.isLoading) {
+            if (loadMoreObservable == null) {
+                return
+            }
+            if (adaptiveTrigger) {
+                updateScrollVelocity(dy)
+            }
+            if (dy <= 0 && !loadMoreObservable.isLoadingPrevious) {
+                checkLoadPrevious(recyclerView, loadMoreObservable)
+            }
+            if (dy < 0 || loadMoreObservable.isLoading) {
                 return
             }
             var lastItem = 0
@@ -56,13 +105,100 @@ class LoadMoreDelegate(loadMoreObservable: LoadMoreObservable) {
                 lastItem = findMax(lastPositions)
             }
             val childCount = layoutManager.childCount
-            val shouldLoadMore =
-                childCount > 1 && lastItem >= totalItemCount - mVisibleThreshold - 1
+            leadTimeMillis = loadMoreObservable.expectedPageLatencyMillis
+            val shouldLoadMore = childCount > 1 && if (adaptiveTrigger && leadTimeMillis > 0) {
+                shouldLoadMoreAdaptive(layoutManager, lastItem, totalItemCount)
+            } else {
+                lastItem >= totalItemCount - mVisibleThreshold - 1
+            }
             if (shouldLoadMore) {
                 loadMoreObservable.onLoadMore()
             }
         }
 
+        /**
+         * 根据相邻两次滑动的位移和时间间隔更新平滑后的滑动速度
+         */
+        private fun updateScrollVelocity(dy: Int) {
+            val now = SystemClock.uptimeMillis()
+            val elapsed = now - lastScrollTime
+            lastScrollTime = now
+            if (elapsed > VELOCITY_SAMPLE_WINDOW_MILLIS) {
+                // 间隔太久说明是重新开始滑动或者代码触发的跳转，不参与估算
+                scrollVelocity = 0f
+            } else if (elapsed > 0) {
+                val instantVelocity = dy.toFloat() / elapsed
+                scrollVelocity += (instantVelocity - scrollVelocity) * VELOCITY_SMOOTHING
+            }
+        }
+
+        /**
+         * 按当前速度估算滑到列表末尾的时间，小于提前量时触发，已经到达末尾时直接触发
+         */
+        private fun shouldLoadMoreAdaptive(
+            layoutManager: RecyclerView.LayoutManager,
+            lastItem: Int,
+            totalItemCount: Int
+        ): Boolean {
+            // 最后一个item是加载更多的footer
+            val remainingItems = totalItemCount - 2 - lastItem
+            if (remainingItems <= 0) {
+                return true
+            }
+            if (scrollVelocity <= 0f) {
+                return false
+            }
+            val itemExtent = measureItemExtent(layoutManager)
+            if (itemExtent <= 0f) {
+                return lastItem >= totalItemCount - mVisibleThreshold - 1
+            }
+            val timeToEnd = remainingItems * itemExtent / scrollVelocity
+            if (timeToEnd > leadTimeMillis) {
+                return false
+            }
+            lastTimeToEndMillis = timeToEnd.toLong()
+            return true
+        }
+
+        /**
+         * 根据可见的item估算每个item平均占用的高度，网格布局下一行有多个item，会按比例摊薄
+         */
+        private fun measureItemExtent(layoutManager: RecyclerView.LayoutManager): Float {
+            var top = Int.MAX_VALUE
+            var bottom = Int.MIN_VALUE
+            var firstPosition = Int.MAX_VALUE
+            var lastPosition = Int.MIN_VALUE
+            for (i in 0 until layoutManager.childCount) {
+                val child = layoutManager.getChildAt(i) ?: continue
+                val position = layoutManager.getPosition(child)
+                top = top.coerceAtMost(layoutManager.getDecoratedTop(child))
+                bottom = bottom.coerceAtLeast(layoutManager.getDecoratedBottom(child))
+                firstPosition = firstPosition.coerceAtMost(position)
+                lastPosition = lastPosition.coerceAtLeast(position)
+            }
+            if (lastPosition <= firstPosition) {
+                return 0f
+            }
+            return (bottom - top).toFloat() / (lastPosition - firstPosition + 1)
+        }
+
+        /**
+         * 第一个可见位置进入阈值范围时触发加载上一页
+         */
+        private fun checkLoadPrevious(
+            recyclerView: RecyclerView,
+            loadMoreObservable: LoadMoreObservable
+        ) {
+            val firstItem = when (val layoutManager = recyclerView.layoutManager) {
+                is LinearLayoutManager -> layoutManager.findFirstVisibleItemPosition()
+                is StaggeredGridLayoutManager -> findMin(layoutManager.findFirstVisibleItemPositions(null))
+                else -> RecyclerView.NO_POSITION
+            }
+            if (firstItem != RecyclerView.NO_POSITION && firstItem <= mVisibleThreshold) {
+                loadMoreObservable.onLoadPrevious()
+            }
+        }
+
         init {
             this.loadMoreObservable = loadMoreObservable
         }
@@ -79,9 +215,33 @@ class LoadMoreDelegate(loadMoreObservable: LoadMoreObservable) {
          * 加载回调
          */
         fun onLoadMore()
+
+        /**
+         * 加载上一页的状态，不支持加载上一页时返回true
+         */
+        val isLoadingPrevious: Boolean
+            get() = true
+
+        /**
+         * 加载上一页回调
+         */
+        fun onLoadPrevious() {
+        }
+
+        /**
+         * 预计一页数据的加载耗时，单位毫秒，自适应触发时作为提前量，0表示未知
+         */
+        val expectedPageLatencyMillis: Long
+            get() = 0L
     }
 
     companion object {
+        // 超过该间隔的两次滑动不计算速度，单位毫秒
+        private const val VELOCITY_SAMPLE_WINDOW_MILLIS = 100L
+
+        // 速度平滑系数，越大越接近最近一次的速度
+        private const val VELOCITY_SMOOTHING = 0.3f
+
         private fun findMax(lastPositions: IntArray?): Int {
             if (lastPositions == null || lastPositions.isEmpty()) {
                 return 0
@@ -92,6 +252,17 @@ class LoadMoreDelegate(loadMoreObservable: LoadMoreObservable) {
             }
             return max
         }
+
+        private fun findMin(firstPositions: IntArray?): Int {
+            if (firstPositions == null || firstPositions.isEmpty()) {
+                return RecyclerView.NO_POSITION
+            }
+            var min = firstPositions[0]
+            for (value in firstPositions) {
+                min = min.coerceAtMost(value)
+            }
+            return min
+        }
     }
 
 }
\ No newline at end of file
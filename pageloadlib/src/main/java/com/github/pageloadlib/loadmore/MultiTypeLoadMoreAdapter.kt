@@ -1,17 +1,25 @@
 package com.github.pageloadlib.loadmore
 
+import android.annotation.SuppressLint
 import android.util.Log
+import android.util.SparseArray
+import android.view.Choreographer
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
 import androidx.annotation.IntDef
+import androidx.recyclerview.widget.DiffUtil
 import androidx.recyclerview.widget.GridLayoutManager
 import androidx.recyclerview.widget.GridLayoutManager.SpanSizeLookup
+import androidx.recyclerview.widget.ListUpdateCallback
 import androidx.recyclerview.widget.RecyclerView
 import com.drakeet.multitype.ItemViewBinder
 import com.drakeet.multitype.MultiTypeAdapter
+import com.github.pageloadlib.adapter.RecycledViewPoolSize
 import com.github.pageloadlib.util.UiThreadUtils
 import java.util.*
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
 
 /**
  * 分页加载Adapter
@@ -19,43 +27,239 @@ import java.util.*
 class MultiTypeLoadMoreAdapter : MultiTypeAdapter(), LoadMoreDelegate.LoadMoreObservable {
     private var loadMoreItemViewBinder: AbstractItemViewBinder<*>
     private val loadMoreItem = LoadMoreItem()
+
+    // 列表头部加载上一页的item，开启加载上一页后固定在列表开头
+    private val loadPreviousItem = LoadMoreItem(isLeading = true)
+
+    // 是否支持加载上一页
+    private var loadPreviousEnabled = false
     private val loadMoreDelegate = LoadMoreDelegate(this)
     private var loadMoreObservable: LoadMoreDelegate.LoadMoreObservable? = null
 
+    // 提供item key的回调，开启稳定ID时使用
+    private var itemKeyProvider: ItemDiffCallback? = null
+
+    // 稳定ID分配表，为null表示没有开启稳定ID
+    private var stableIdRegistry: StableIdRegistry? = null
+
+    // 开启稳定ID时item没有key直接抛出异常，否则只输出一次警告
+    private var requireStableKeys = false
+
+    // 已经警告过没有key的item类型
+    private val unkeyedItemClasses = HashSet<Class<*>>()
+
     // 针对GridLayoutManager布局配置
     private var mSpanSizeLookup: SpanSizeLookup? = null
 
+    // GridLayoutManager布局下每种item类型占用的列数，未配置的类型占1列
+    private var spanSizes: Map<Class<*>, Int> = emptyMap()
+
+    // viewType到列数的缓存，查询时按需补齐，attach之后注册的类型也能查到；
+    // 重复注册同一类型会改变viewType，因此同时记录类型，不一致时重新查询
+    private val spanSizeByViewType = SparseArray<SpanSizeEntry>()
+
+    // 原地修改版本，原地追加或替换数据时递增，用于校验后台diff结果是否仍然有效
+    private var mutationVersion = 0
+
+    // 刷新diff的代数，items被替换或提交新的diff时递增，丢弃过期的diff结果
+    private var diffGeneration = 0
+
+    // 等待刷新的footer和头部item，同一帧内多次修改状态只刷新一次
+    private var pendingFooterUpdate = false
+    private var pendingHeaderUpdate = false
+    private var isFrameUpdateScheduled = false
+    private val frameUpdateCallback = Choreographer.FrameCallback {
+        isFrameUpdateScheduled = false
+        flushPendingUpdates()
+    }
+
+    /**
+     * 是否有正在后台计算的diff
+     */
+    var isDiffPending = false
+        private set
+
     override var items: List<Any> = emptyList()
         set(newItems) {
+            diffGeneration++
+            isDiffPending = false
             if (newItems.isEmpty()) {
                 field = newItems
                 return
             }
-            val mutableList: MutableList<Any> = ArrayList()
-            mutableList.addAll(newItems)
-            if (newItems.last() != loadMoreItem) {
-                mutableList.add(loadMoreItem)
-            }
-            field = mutableList
+            // 按页分块存储，之后追加和替换只修改涉及的分块
+            val header = if (loadPreviousEnabled || newItems.first() === loadPreviousItem) loadPreviousItem else null
+            val pagedList = PagedItemList.of(newItems, header, loadMoreItem)
+            field = pagedList
+            stableIdRegistry?.pruneIfNeeded(pagedList, ::itemKeyOf)
+        }
+
+    /**
+     * 开启稳定ID，item的key优先使用KeyedItem.itemKey，其次使用keyProvider.getItemKey，需要在设置给RecyclerView之前调用
+     * 所有item都需要有key：没有key的item替换为新对象后会得到新的id，局部刷新的payload会丢失
+     *
+     * @param keyProvider 提供item的key，可以直接使用刷新diff的回调
+     * @param strict 为true时（debug模式）item没有key直接抛出异常，否则输出警告并按对象实例分配id
+     */
+    fun enableStableIds(keyProvider: ItemDiffCallback?, strict: Boolean = false) {
+        itemKeyProvider = keyProvider
+        requireStableKeys = strict
+        stableIdRegistry = StableIdRegistry()
+        setHasStableIds(true)
+    }
+
+    private fun itemKeyOf(item: Any): Any? {
+        return (item as? KeyedItem)?.itemKey ?: itemKeyProvider?.getItemKey(item)
+    }
+
+    override fun getItemId(position: Int): Long {
+        val registry = stableIdRegistry ?: return super.getItemId(position)
+        val item = items[position]
+        val key = itemKeyOf(item)
+        if (key == null) {
+            onMissingStableKey(item)
+        }
+        return registry.idOf(item, key)
+    }
+
+    /**
+     * 开启稳定ID后item没有key
+     */
+    private fun onMissingStableKey(item: Any) {
+        val message = "${item.javaClass.name}没有key，开启稳定ID时需要实现KeyedItem或者在ItemDiffCallback.getItemKey中返回key"
+        if (requireStableKeys) {
+            throw IllegalStateException(message)
+        }
+        if (unkeyedItemClasses.add(item.javaClass)) {
+            Log.w(TAG, "$message，暂时按对象实例分配id")
+        }
+    }
+
+    /**
+     * 局部刷新指定数据位置的item，payload会传给ItemViewBinder.onBindViewHolder(holder, item, payloads)，
+     * binder可以只更新变化的字段，避免重新加载图片和文字排版
+     *
+     * @param dataPosition 数据位置，不包含头部加载上一页的item
+     * @param payload 变化的内容，为null时完整重新绑定
+     */
+    fun notifyDataItemChanged(dataPosition: Int, payload: Any? = null) {
+        notifyItemChanged(dataPosition + headerItemCount, payload)
+    }
+
+    /**
+     * 头部加载上一页item的数量，数据在adapter中的位置需要加上该值
+     */
+    val headerItemCount: Int
+        get() = if (items.firstOrNull() === loadPreviousItem) 1 else 0
+
+    /**
+     * 不包含loadMoreItem以及头部加载上一页item的数据数量
+     */
+    val dataItemCount: Int
+        get() {
+            val footerCount = if (items.lastOrNull() === loadMoreItem) 1 else 0
+            return items.size - footerCount - headerItemCount
         }
 
+    /**
+     * 在loadMoreItem之前追加数据并局部刷新
+     * 追加为新的分块，不复制已有数据，耗时与新增数量成正比
+     */
     fun appendItemsAndNotify(newItems: List<Any>) {
-        if (newItems.isNullOrEmpty()) {
+        if (newItems.isEmpty()) {
             return
         }
-        val size = items.size
-        val mutableList = items.toMutableList()
-        if (mutableList.lastOrNull() == loadMoreItem) {
-            val index = size - 1
-            mutableList.addAll(index, newItems)
-            items = mutableList
-            notifyItemRangeChanged(index, newItems.size)
+        val current = items
+        if (current is PagedItemList) {
+            val index = current.size - 1
+            current.appendChunk(newItems)
+            mutationVersion++
+            notifyItemRangeInserted(index, newItems.size)
         } else {
-            // 最后一项不是loadMoreItem的场景
-            mutableList.addAll(newItems)
-            mutableList.add(loadMoreItem)
-            items = mutableList
-            notifyItemRangeChanged(size, newItems.size + 1)
+            // 最后一项不是loadMoreItem的场景，setter中会补上loadMoreItem
+            val size = current.size
+            items = current + newItems
+            notifyItemRangeInserted(size, items.size - size)
+        }
+    }
+
+    /**
+     * 把从startIndex开始的removeCount项替换为newItems并局部刷新，loadMoreItem保持在末尾
+     * 数量不变时原地替换，其他item的位置不受影响，数量变化时只修改涉及的分块
+     *
+     * @param startIndex 数据位置，不包含头部加载上一页的item
+     * @param payload 数量不变时传给notifyItemRangeChanged的payload
+     * @return false表示区间无效，没有做任何修改
+     */
+    fun replaceItemsAndNotify(
+        startIndex: Int,
+        removeCount: Int,
+        newItems: List<Any>,
+        payload: Any? = null
+    ): Boolean {
+        val dataCount = dataItemCount
+        if (startIndex < 0 || removeCount < 0 || startIndex + removeCount > dataCount) {
+            return false
+        }
+        if (startIndex == dataCount && removeCount == 0) {
+            appendItemsAndNotify(newItems)
+            return true
+        }
+        val current = items as? PagedItemList ?: return false
+        val position = startIndex + headerItemCount
+        current.replace(startIndex, removeCount, newItems)
+        if (removeCount == newItems.size) {
+            notifyItemRangeChanged(position, removeCount, payload)
+        } else {
+            notifyItemRangeRemoved(position, removeCount)
+            notifyItemRangeInserted(position, newItems.size)
+        }
+        mutationVersion++
+        return true
+    }
+
+    /**
+     * 在后台线程计算新旧列表的差异后局部刷新，loadMoreItem始终固定在列表末尾
+     *
+     * @param newItems 新的数据列表，不包含loadMoreItem
+     * @param callback 提供item的key以及内容比较
+     * @param onCommitted 差异应用到列表后的回调
+     */
+    @SuppressLint("NotifyDataSetChanged")
+    fun submitItemsWithDiff(
+        newItems: List<Any>,
+        callback: ItemDiffCallback,
+        onCommitted: (() -> Unit)? = null
+    ) {
+        val headerCount = headerItemCount
+        val oldItems = items.subList(headerCount, headerCount + dataItemCount).toList()
+        val newSnapshot = newItems.toList()
+        if (oldItems.isEmpty() || newSnapshot.isEmpty()) {
+            items = newSnapshot
+            notifyDataSetChanged()
+            onCommitted?.invoke()
+            return
+        }
+        val generation = ++diffGeneration
+        val version = mutationVersion
+        isDiffPending = true
+        diffExecutor.execute {
+            val result = DiffUtil.calculateDiff(DiffCallback(oldItems, newSnapshot, callback))
+            UiThreadUtils.post(Runnable {
+                if (generation != diffGeneration) {
+                    // 列表已被替换或已有更新的diff提交，丢弃本次结果
+                    return@Runnable
+                }
+                val unchanged = version == mutationVersion
+                items = newSnapshot
+                if (unchanged) {
+                    result.dispatchUpdatesTo(OffsetUpdateCallback(headerItemCount))
+                } else {
+                    // diff期间列表被原地修改过，差异结果已不可靠，整体刷新
+                    notifyDataSetChanged()
+                }
+                onCommitted?.invoke()
+            })
         }
     }
 
@@ -64,15 +268,77 @@ class MultiTypeLoadMoreAdapter : MultiTypeAdapter(), LoadMoreDelegate.LoadMoreOb
             // 如果已经提示没有更多数据了，此时新状态为加载失败则过滤。
             return
         }
+        if (loadMoreItem.state == state) {
+            return
+        }
         loadMoreItem.state = state
-        UiThreadUtils.post(
-            Runnable {
-                // 延迟100ms刷新UI，避免新数据加入列表之前刷新loadMore
-                if (itemCount > 0) {
-                    notifyItemChanged(itemCount - 1)
-                }
-            }, 100
-        )
+        pendingFooterUpdate = true
+        scheduleFrameUpdate()
+    }
+
+    /**
+     * 在下一帧刷新等待中的footer和头部item
+     */
+    private fun scheduleFrameUpdate() {
+        if (!isFrameUpdateScheduled) {
+            isFrameUpdateScheduled = true
+            Choreographer.getInstance().postFrameCallback(frameUpdateCallback)
+        }
+    }
+
+    /**
+     * 立即刷新等待中的footer和头部item，在提交列表数据之后调用，状态和数据在同一帧展示
+     * 刷新时重新查找footer的位置，不受列表变化的影响
+     */
+    fun flushPendingUpdates() {
+        if (isFrameUpdateScheduled) {
+            isFrameUpdateScheduled = false
+            Choreographer.getInstance().removeFrameCallback(frameUpdateCallback)
+        }
+        if (pendingFooterUpdate) {
+            pendingFooterUpdate = false
+            val position = items.size - 1
+            if (position >= 0 && items[position] === loadMoreItem) {
+                notifyItemChanged(position)
+            }
+        }
+        if (pendingHeaderUpdate) {
+            pendingHeaderUpdate = false
+            if (headerItemCount > 0) {
+                notifyItemChanged(0)
+            }
+        }
+    }
+
+    /**
+     * 取消等待中的刷新，状态已经记录在item中，重新绑定时会展示最新状态
+     */
+    fun cancelPendingUpdates() {
+        if (isFrameUpdateScheduled) {
+            isFrameUpdateScheduled = false
+            Choreographer.getInstance().removeFrameCallback(frameUpdateCallback)
+        }
+        pendingFooterUpdate = false
+        pendingHeaderUpdate = false
+    }
+
+    /**
+     * 设置是否支持加载上一页，开启后列表开头固定显示一个加载上一页的item
+     */
+    fun setLoadPreviousEnabled(enabled: Boolean) {
+        loadPreviousEnabled = enabled
+    }
+
+    fun setLoadPreviousState(@LoadMoreItem.ItemState state: Int) {
+        if (loadPreviousItem.state == LoadMoreItem.STATE_NO_MORE_DATA && state == LoadMoreItem.STATE_FAILED) {
+            return
+        }
+        if (loadPreviousItem.state == state) {
+            return
+        }
+        loadPreviousItem.state = state
+        pendingHeaderUpdate = true
+        scheduleFrameUpdate()
     }
 
     /**
@@ -86,12 +352,28 @@ class MultiTypeLoadMoreAdapter : MultiTypeAdapter(), LoadMoreDelegate.LoadMoreOb
         mSpanSizeLookup = spanSizeLookup
     }
 
+    /**
+     * 设置GridLayoutManager布局下每种item类型占用的列数，加载更多和加载上一页的item始终占满一行，
+     * 设置了setGridLayoutSpanSizeLookup时以其为准
+     *
+     * @param spanSizes key为注册的item类型，value为占用的列数
+     */
+    fun setGridSpanSizes(spanSizes: Map<Class<*>, Int>) {
+        this.spanSizes = spanSizes
+        spanSizeByViewType.clear()
+    }
+
     fun setLoadMoreViewBinder(viewBinder: AbstractItemViewBinder<*>) {
         viewBinder.setLoadMoreRetryListener(loadMoreItemViewBinder.mListener)
         loadMoreItemViewBinder = viewBinder
         register(LoadMoreItem::class.java, viewBinder)
     }
 
+    override fun onDetachedFromRecyclerView(recyclerView: RecyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView)
+        cancelPendingUpdates()
+    }
+
     override fun onAttachedToRecyclerView(recyclerView: RecyclerView) {
         loadMoreDelegate.attach(recyclerView)
         val layoutManager = recyclerView.layoutManager
@@ -104,19 +386,75 @@ class MultiTypeLoadMoreAdapter : MultiTypeAdapter(), LoadMoreDelegate.LoadMoreOb
             return
         }
         if (layoutManager is GridLayoutManager) {
-            layoutManager.spanSizeLookup = mSpanSizeLookup ?: object : SpanSizeLookup() {
-                override fun getSpanSize(position: Int): Int {
-                    val obj = items[position]
-                    return if (obj is LoadMoreItem) layoutManager.spanCount else 1
+            layoutManager.spanSizeLookup = mSpanSizeLookup ?: createSpanSizeLookup(layoutManager)
+        }
+    }
+
+    /**
+     * 按viewType查询列数，并开启span index和group index缓存，
+     * 数据变化时GridLayoutManager会自动清空缓存，长列表中查询不再随位置增加而变慢
+     */
+    private fun createSpanSizeLookup(layoutManager: GridLayoutManager): SpanSizeLookup {
+        return object : SpanSizeLookup() {
+            override fun getSpanSize(position: Int): Int {
+                val spanSize = spanSizeOf(getItemViewType(position))
+                return if (spanSize == FULL_SPAN) {
+                    layoutManager.spanCount
+                } else {
+                    spanSize.coerceIn(1, layoutManager.spanCount)
                 }
             }
+        }.apply {
+            isSpanIndexCacheEnabled = true
+            isSpanGroupIndexCacheEnabled = true
         }
     }
 
+    /**
+     * 查询viewType占用的列数，注册顺序即viewType，第一次查询时转换并缓存
+     */
+    internal fun spanSizeOf(viewType: Int): Int {
+        val clazz = types.getType<Any>(viewType).clazz
+        val cached = spanSizeByViewType.get(viewType)
+        if (cached != null && cached.clazz == clazz) {
+            return cached.spanSize
+        }
+        val spanSize = if (clazz == LoadMoreItem::class.java) {
+            FULL_SPAN
+        } else {
+            spanSizes[clazz] ?: 1
+        }
+        spanSizeByViewType.put(viewType, SpanSizeEntry(clazz, spanSize))
+        return spanSize
+    }
+
+    /**
+     * 缓存的列数及查询时viewType对应的类型
+     */
+    private class SpanSizeEntry(val clazz: Class<*>, val spanSize: Int)
+
     fun setAutoLoadMoreTrigger(visibleThreshold: Int) {
         loadMoreDelegate.setVisibleThreshold(visibleThreshold)
     }
 
+    fun setAdaptiveLoadMoreTrigger(adaptive: Boolean) {
+        loadMoreDelegate.setAdaptiveTrigger(adaptive)
+    }
+
+    /**
+     * 自适应触发使用的提前量，单位毫秒
+     */
+    fun getLoadMoreLeadTimeMillis(): Long {
+        return loadMoreDelegate.getLeadTimeMillis()
+    }
+
+    /**
+     * 最近一次自适应触发时估算的到达列表末尾的时间，单位毫秒，-1表示还没有触发过
+     */
+    fun getLastTimeToEndMillis(): Long {
+        return loadMoreDelegate.getLastTimeToEndMillis()
+    }
+
     fun setLoadMoreObservable(loadMoreObservable: LoadMoreDelegate.LoadMoreObservable) {
         this.loadMoreObservable = loadMoreObservable
     }
@@ -124,6 +462,21 @@ class MultiTypeLoadMoreAdapter : MultiTypeAdapter(), LoadMoreDelegate.LoadMoreOb
     override val isLoading: Boolean
         get() = loadMoreObservable == null || loadMoreObservable!!.isLoading
 
+    override val expectedPageLatencyMillis: Long
+        get() = loadMoreObservable?.expectedPageLatencyMillis ?: 0L
+
+    override val isLoadingPrevious: Boolean
+        get() = !loadPreviousEnabled || loadMoreObservable == null || loadMoreObservable!!.isLoadingPrevious
+
+    override fun onLoadPrevious() {
+        if (loadPreviousEnabled &&
+            (loadPreviousItem.state == LoadMoreItem.STATE_LOADING
+                    || loadPreviousItem.state == LoadMoreItem.STATE_FAILED)
+        ) {
+            loadMoreObservable?.onLoadPrevious()
+        }
+    }
+
     override fun onLoadMore() {
         // Loading 和 failed 状态均可触发加载下一页
         if (loadMoreObservable != null &&
@@ -138,8 +491,13 @@ class MultiTypeLoadMoreAdapter : MultiTypeAdapter(), LoadMoreDelegate.LoadMoreOb
 
     /**
      * dataEntity for LoadMoreViewBinder
+     *
+     * @param isLeading 是否为列表头部加载上一页的item
      */
-    class LoadMoreItem {
+    class LoadMoreItem(val isLeading: Boolean = false) : KeyedItem {
+        override val itemKey: Any
+            get() = if (isLeading) KEY_LOAD_PREVIOUS else KEY_LOAD_MORE
+
         @Retention(AnnotationRetention.SOURCE)
         @IntDef(
             STATE_NO_MORE_DATA,
@@ -165,25 +523,39 @@ class MultiTypeLoadMoreAdapter : MultiTypeAdapter(), LoadMoreDelegate.LoadMoreOb
              * not visible
              */
             const val STATE_GONE = 3
+
+            private const val KEY_LOAD_MORE = "load_more_item"
+            private const val KEY_LOAD_PREVIOUS = "load_previous_item"
         }
     }
 
     /**
      * loadMoreViewBinder基类，限制子类实现各种状态。
      */
-    abstract class AbstractItemViewBinder<VH : ViewHolder> : ItemViewBinder<LoadMoreItem, VH>() {
+    abstract class AbstractItemViewBinder<VH : ViewHolder> : ItemViewBinder<LoadMoreItem, VH>(),
+        RecycledViewPoolSize {
         var mListener: ILoadMoreRetryListener? = null
+
+        // 列表中最多只有头部和底部两个
+        override val maxRecycledViews: Int
+            get() = 2
         override fun onCreateViewHolder(inflater: LayoutInflater, parent: ViewGroup): VH {
-            val viewHolder = createViewHolder(inflater, parent)
-            viewHolder.mListener = mListener
-            return viewHolder
+            return createViewHolder(inflater, parent)
         }
 
         override fun onBindViewHolder(holder: VH, item: LoadMoreItem) {
+            // 共用复用池时ViewHolder可能由其他列表创建，每次绑定都使用当前列表的重试回调
+            holder.mListener = mListener
             holder.data = item
             holder.setState(item.state)
         }
 
+        override fun onViewRecycled(holder: VH) {
+            // 放入复用池后不再持有当前列表的回调和数据
+            holder.mListener = null
+            holder.data = null
+        }
+
         protected abstract fun createViewHolder(inflater: LayoutInflater, parent: ViewGroup): VH
         fun setLoadMoreRetryListener(listener: ILoadMoreRetryListener?) {
             mListener = listener
@@ -203,7 +575,11 @@ class MultiTypeLoadMoreAdapter : MultiTypeAdapter(), LoadMoreDelegate.LoadMoreOb
                 data?.let {
                     if (it.state == LoadMoreItem.STATE_FAILED) {
                         mListener?.let { listener ->
-                            listener.retry()
+                            if (it.isLeading) {
+                                listener.retryPrevious()
+                            } else {
+                                listener.retry()
+                            }
                             it.state = LoadMoreItem.STATE_LOADING
                             setState(it.state)
                         }
@@ -213,12 +589,83 @@ class MultiTypeLoadMoreAdapter : MultiTypeAdapter(), LoadMoreDelegate.LoadMoreOb
         }
     }
 
+    /**
+     * 基于ItemDiffCallback的DiffUtil回调，只比较数据项，不包含loadMoreItem
+     */
+    private class DiffCallback(
+        private val oldItems: List<Any>,
+        private val newItems: List<Any>,
+        private val callback: ItemDiffCallback
+    ) : DiffUtil.Callback() {
+        override fun getOldListSize(): Int = oldItems.size
+
+        override fun getNewListSize(): Int = newItems.size
+
+        override fun areItemsTheSame(oldItemPosition: Int, newItemPosition: Int): Boolean {
+            val oldItem = oldItems[oldItemPosition]
+            val newItem = newItems[newItemPosition]
+            if (oldItem === newItem) {
+                return true
+            }
+            if (oldItem.javaClass != newItem.javaClass) {
+                return false
+            }
+            val oldKey = keyOf(oldItem)
+            return oldKey != null && oldKey == keyOf(newItem)
+        }
+
+        override fun areContentsTheSame(oldItemPosition: Int, newItemPosition: Int): Boolean {
+            return callback.areContentsTheSame(oldItems[oldItemPosition], newItems[newItemPosition])
+        }
+
+        override fun getChangePayload(oldItemPosition: Int, newItemPosition: Int): Any? {
+            return callback.getChangePayload(oldItems[oldItemPosition], newItems[newItemPosition])
+        }
+
+        private fun keyOf(item: Any): Any? {
+            return (item as? KeyedItem)?.itemKey ?: callback.getItemKey(item)
+        }
+    }
+
+    /**
+     * 把diff结果偏移头部item的数量后分发给adapter
+     */
+    private inner class OffsetUpdateCallback(private val offset: Int) : ListUpdateCallback {
+        override fun onInserted(position: Int, count: Int) {
+            notifyItemRangeInserted(position + offset, count)
+        }
+
+        override fun onRemoved(position: Int, count: Int) {
+            notifyItemRangeRemoved(position + offset, count)
+        }
+
+        override fun onMoved(fromPosition: Int, toPosition: Int) {
+            notifyItemMoved(fromPosition + offset, toPosition + offset)
+        }
+
+        override fun onChanged(position: Int, count: Int, payload: Any?) {
+            notifyItemRangeChanged(position + offset, count, payload)
+        }
+    }
+
     interface ILoadMoreRetryListener {
         fun retry()
+
+        /**
+         * 加载上一页失败后点击重试
+         */
+        fun retryPrevious() {
+        }
     }
 
     companion object {
         private val TAG = MultiTypeLoadMoreAdapter::class.java.simpleName
+
+        // 占满一行的列数标记
+        private const val FULL_SPAN = -1
+
+        // 所有列表共用的diff计算线程
+        private val diffExecutor: Executor by lazy { Executors.newSingleThreadExecutor() }
     }
 
     init {
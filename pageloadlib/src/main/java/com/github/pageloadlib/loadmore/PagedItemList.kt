@@ -0,0 +1,159 @@
+package com.github.pageloadlib.loadmore
+
+/**
+ * 按页分块存储的适配器数据：数据由若干分块组成，头部和footer作为虚拟位置不占用分块
+ *
+ * 追加一页只新增一个分块，替换和淘汰只修改涉及的分块，不再复制整个列表，
+ * 按位置读取时二分查找所在的分块，耗时与页数的对数成正比
+ *
+ * @param header 固定在开头的item，为null表示没有
+ * @param footer 固定在末尾的item
+ */
+internal class PagedItemList(
+    private val header: Any?,
+    private val footer: Any
+) : AbstractList<Any>(), RandomAccess {
+
+    private val chunks = ArrayList<ArrayList<Any>>()
+
+    // 每个分块第一项的数据位置，与chunks一一对应
+    private var chunkStarts = IntArray(INITIAL_CHUNK_CAPACITY)
+
+    // 不包含头部和footer的数据数量
+    private var dataSize = 0
+
+    private val headerCount: Int
+        get() = if (header != null) 1 else 0
+
+    override val size: Int
+        get() = headerCount + dataSize + 1
+
+    override fun get(index: Int): Any {
+        if (index < 0 || index >= size) {
+            throw IndexOutOfBoundsException("Index: $index, Size: $size")
+        }
+        if (header != null && index == 0) {
+            return header
+        }
+        val dataIndex = index - headerCount
+        if (dataIndex == dataSize) {
+            return footer
+        }
+        val chunkIndex = findChunk(dataIndex)
+        return chunks[chunkIndex][dataIndex - chunkStarts[chunkIndex]]
+    }
+
+    /**
+     * 在末尾追加一页数据，只复制本页
+     */
+    fun appendChunk(items: List<Any>) {
+        if (items.isEmpty()) {
+            return
+        }
+        chunks.add(ArrayList(items))
+        ensureCapacity()
+        chunkStarts[chunks.size - 1] = dataSize
+        dataSize += items.size
+    }
+
+    /**
+     * 把从dataStart开始的removeCount项替换为items
+     * 数量不变时原地替换；否则只合并涉及的分块，其余分块保持不变
+     *
+     * @param dataStart 数据位置，不包含头部
+     */
+    fun replace(dataStart: Int, removeCount: Int, items: List<Any>) {
+        if (dataStart < 0 || removeCount < 0 || dataStart + removeCount > dataSize) {
+            throw IndexOutOfBoundsException("Start: $dataStart, Count: $removeCount, Size: $dataSize")
+        }
+        if (removeCount == items.size) {
+            for (i in items.indices) {
+                val chunkIndex = findChunk(dataStart + i)
+                chunks[chunkIndex][dataStart + i - chunkStarts[chunkIndex]] = items[i]
+            }
+            return
+        }
+        if (dataStart == dataSize) {
+            appendChunk(items)
+            return
+        }
+        if (dataStart == 0 && removeCount == 0) {
+            // 在开头插入一页，例如加载上一页
+            chunks.add(0, ArrayList(items))
+            dataSize += items.size
+            rebuildChunkStarts(0)
+            return
+        }
+        val firstChunk = findChunk(dataStart)
+        val lastChunk = if (removeCount == 0) firstChunk else findChunk(dataStart + removeCount - 1)
+        val merged = if (firstChunk == lastChunk) {
+            chunks[firstChunk]
+        } else {
+            ArrayList<Any>().apply {
+                for (i in firstChunk..lastChunk) {
+                    addAll(chunks[i])
+                }
+            }
+        }
+        val local = dataStart - chunkStarts[firstChunk]
+        merged.subList(local, local + removeCount).clear()
+        merged.addAll(local, items)
+        chunks.subList(firstChunk + 1, lastChunk + 1).clear()
+        if (merged.isEmpty()) {
+            // 不保留空分块，保证二分查找的结果唯一
+            chunks.removeAt(firstChunk)
+        } else {
+            chunks[firstChunk] = merged
+        }
+        dataSize += items.size - removeCount
+        rebuildChunkStarts(firstChunk)
+    }
+
+    /**
+     * 查找数据位置所在的分块
+     */
+    private fun findChunk(dataIndex: Int): Int {
+        var low = 0
+        var high = chunks.size - 1
+        while (low < high) {
+            val mid = (low + high + 1) ushr 1
+            if (chunkStarts[mid] <= dataIndex) {
+                low = mid
+            } else {
+                high = mid - 1
+            }
+        }
+        return low
+    }
+
+    /**
+     * 从指定分块开始重新计算起始位置
+     */
+    private fun rebuildChunkStarts(from: Int) {
+        ensureCapacity()
+        for (i in from until chunks.size) {
+            chunkStarts[i] = if (i == 0) 0 else chunkStarts[i - 1] + chunks[i - 1].size
+        }
+    }
+
+    private fun ensureCapacity() {
+        if (chunkStarts.size < chunks.size) {
+            chunkStarts = chunkStarts.copyOf(maxOf(chunks.size, chunkStarts.size * 2))
+        }
+    }
+
+    companion object {
+        private const val INITIAL_CHUNK_CAPACITY = 8
+
+        /**
+         * 创建只有一个分块的列表，newItems开头的header和末尾的footer会被去掉
+         */
+        fun of(newItems: List<Any>, header: Any?, footer: Any): PagedItemList {
+            val start = if (newItems.firstOrNull() === header && header != null) 1 else 0
+            val end = if (newItems.size > start && newItems.last() === footer) newItems.size - 1 else newItems.size
+            return PagedItemList(header, footer).apply {
+                appendChunk(newItems.subList(start, end))
+            }
+        }
+    }
+}
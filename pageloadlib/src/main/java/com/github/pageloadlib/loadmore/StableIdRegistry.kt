@@ -0,0 +1,64 @@
+package com.github.pageloadlib.loadmore
+
+import java.util.IdentityHashMap
+
+/**
+ * 为item的key分配唯一的long类型id，同一类型下key相同的item始终得到同一个id
+ * 没有key的item只能按对象实例分配（调用方负责警告），数量超过当前列表较多时清理已经不在列表中的记录
+ */
+internal class StableIdRegistry {
+
+    private val keyedIds = HashMap<Class<*>, HashMap<Any, Long>>()
+    private val unkeyedIds = IdentityHashMap<Any, Long>()
+    private var nextId = 0L
+    private var entryCount = 0
+
+    /**
+     * 获取item的id
+     * @param item 列表数据
+     * @param key item的key，为null时按对象实例分配
+     */
+    fun idOf(item: Any, key: Any?): Long {
+        if (key == null) {
+            return unkeyedIds.getOrPut(item) { newId() }
+        }
+        return keyedIds.getOrPut(item.javaClass) { HashMap() }.getOrPut(key) { newId() }
+    }
+
+    private fun newId(): Long {
+        entryCount++
+        return nextId++
+    }
+
+    /**
+     * 记录数量超过当前列表数量较多时，只保留当前列表中item的id
+     * @param items 当前列表
+     * @param keyOf 获取item的key
+     */
+    fun pruneIfNeeded(items: List<Any>, keyOf: (Any) -> Any?) {
+        if (entryCount <= items.size * 2 + MIN_PRUNE_ENTRIES) {
+            return
+        }
+        val keptKeyed = HashMap<Class<*>, HashMap<Any, Long>>()
+        val keptUnkeyed = IdentityHashMap<Any, Long>()
+        for (item in items) {
+            val key = keyOf(item)
+            if (key == null) {
+                unkeyedIds[item]?.let { keptUnkeyed[item] = it }
+            } else {
+                keyedIds[item.javaClass]?.get(key)?.let {
+                    keptKeyed.getOrPut(item.javaClass) { HashMap() }[key] = it
+                }
+            }
+        }
+        keyedIds.clear()
+        keyedIds.putAll(keptKeyed)
+        unkeyedIds.clear()
+        unkeyedIds.putAll(keptUnkeyed)
+        entryCount = keptUnkeyed.size + keptKeyed.values.sumOf { it.size }
+    }
+
+    companion object {
+        private const val MIN_PRUNE_ENTRIES = 256
+    }
+}
@@ -0,0 +1,174 @@
+package com.github.pageloadlib.metrics
+
+import android.os.Build
+import android.os.Handler
+import android.os.HandlerThread
+import android.view.FrameMetrics
+import android.view.Window
+import java.util.EnumMap
+
+/**
+ * 通过Window.OnFrameMetricsAvailableListener收集帧耗时，按帧发生时所处的阶段分别统计直方图
+ *
+ * 阶段由列表在主线程通过[markPhase]和[setFling]标记，帧耗时在后台线程回调，
+ * 帧的时间区间与标记时间比较后归因：一帧内或之后短时间内有多个标记时归因于最近的标记，
+ * 没有标记且处于惯性滑动中时归因于FLING
+ *
+ * @param screenName 页面名称
+ */
+internal class FrameMetricsCollector(private val screenName: String) {
+
+    private val lock = Any()
+
+    // 各阶段的直方图，按毫秒分桶
+    private val histograms = EnumMap<FramePhase, IntArray>(FramePhase::class.java)
+    private val slowFrameCounts = EnumMap<FramePhase, Int>(FramePhase::class.java)
+
+    // 最近的阶段标记，环形缓冲区
+    private val markTimes = LongArray(MARK_CAPACITY)
+    private val markPhases = arrayOfNulls<FramePhase>(MARK_CAPACITY)
+    private var markCount = 0
+    private var nextMark = 0
+
+    // 最近一次惯性滑动的区间，滑动中时结束时间为Long.MAX_VALUE
+    private var flingStartNanos = Long.MIN_VALUE
+    private var flingEndNanos = Long.MIN_VALUE
+
+    private var frameBudgetNanos = DEFAULT_FRAME_BUDGET_NANOS
+    private var window: Window? = null
+
+    private val listener = Window.OnFrameMetricsAvailableListener { _, frameMetrics, _ ->
+        onFrame(frameMetrics)
+    }
+
+    /**
+     * 开始收集，重复调用无效
+     * @param window 列表所在的窗口
+     * @param refreshRate 屏幕刷新率
+     */
+    fun attach(window: Window, refreshRate: Float) {
+        if (this.window != null) {
+            return
+        }
+        this.window = window
+        frameBudgetNanos = if (refreshRate > 0) (1_000_000_000 / refreshRate).toLong() else DEFAULT_FRAME_BUDGET_NANOS
+        window.addOnFrameMetricsAvailableListener(listener, handler)
+    }
+
+    /**
+     * 停止收集并返回本次收集的统计，没有记录到帧时返回null
+     */
+    fun detach(): FrameMetricsReport? {
+        val window = this.window ?: return null
+        this.window = null
+        try {
+            window.removeOnFrameMetricsAvailableListener(listener)
+        } catch (e: IllegalArgumentException) {
+            // 窗口已经移除了监听
+        }
+        synchronized(lock) {
+            if (histograms.isEmpty()) {
+                return null
+            }
+            val phases = EnumMap<FramePhase, FrameMetricsReport.PhaseStats>(FramePhase::class.java)
+            for ((phase, histogram) in histograms) {
+                phases[phase] = FrameMetricsReport.PhaseStats(histogram, slowFrameCounts[phase] ?: 0)
+            }
+            histograms.clear()
+            slowFrameCounts.clear()
+            return FrameMetricsReport(screenName, frameBudgetNanos / 1_000_000f, phases)
+        }
+    }
+
+    /**
+     * 标记一次短暂的阶段，例如插入数据，影响当前帧和之后一小段时间内的帧
+     */
+    fun markPhase(phase: FramePhase) {
+        val now = System.nanoTime()
+        synchronized(lock) {
+            markTimes[nextMark] = now
+            markPhases[nextMark] = phase
+            nextMark = (nextMark + 1) % MARK_CAPACITY
+            if (markCount < MARK_CAPACITY) {
+                markCount++
+            }
+        }
+    }
+
+    /**
+     * 标记惯性滑动开始或结束
+     */
+    fun setFling(isFling: Boolean) {
+        val now = System.nanoTime()
+        synchronized(lock) {
+            if (isFling) {
+                if (flingEndNanos != Long.MAX_VALUE) {
+                    flingStartNanos = now
+                    flingEndNanos = Long.MAX_VALUE
+                }
+            } else if (flingEndNanos == Long.MAX_VALUE) {
+                flingEndNanos = now
+            }
+        }
+    }
+
+    private fun onFrame(frameMetrics: FrameMetrics) {
+        val totalNanos = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION)
+        // API 26以下没有帧开始的时间戳，用回调时间近似帧结束时间
+        val frameStart = if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            frameMetrics.getMetric(FrameMetrics.INTENDED_VSYNC_TIMESTAMP)
+        } else {
+            System.nanoTime() - totalNanos
+        }
+        val frameEnd = frameStart + totalNanos
+        val bucket = (totalNanos / 1_000_000).toInt().coerceIn(0, MAX_BUCKET_MILLIS)
+        synchronized(lock) {
+            val phase = phaseOf(frameStart, frameEnd)
+            histograms.getOrPut(phase) { IntArray(MAX_BUCKET_MILLIS + 1) }[bucket]++
+            if (totalNanos > frameBudgetNanos) {
+                slowFrameCounts[phase] = (slowFrameCounts[phase] ?: 0) + 1
+            }
+        }
+    }
+
+    /**
+     * 查找帧所处的阶段，需要持有lock
+     */
+    private fun phaseOf(frameStart: Long, frameEnd: Long): FramePhase {
+        // 从最近的标记开始查找
+        for (i in 1..markCount) {
+            val index = (nextMark - i + MARK_CAPACITY) % MARK_CAPACITY
+            val time = markTimes[index]
+            if (time > frameEnd) {
+                continue
+            }
+            if (time < frameStart - PHASE_WINDOW_NANOS) {
+                break
+            }
+            return markPhases[index] ?: continue
+        }
+        if (flingStartNanos <= frameEnd && flingEndNanos >= frameStart) {
+            return FramePhase.FLING
+        }
+        return FramePhase.OTHER
+    }
+
+    companion object {
+        // 直方图最大的分桶，更慢的帧计入最后一个桶
+        private const val MAX_BUCKET_MILLIS = 200
+
+        private const val MARK_CAPACITY = 16
+
+        // 标记之后该时间内的帧仍然归因于该阶段，覆盖插入后的布局和item动画
+        private const val PHASE_WINDOW_NANOS = 100_000_000L
+
+        private const val DEFAULT_FRAME_BUDGET_NANOS = 16_666_667L
+
+        // 所有页面共用一个后台线程接收帧耗时
+        private val handler: Handler by lazy {
+            val thread = HandlerThread("PageLoadFrameMetrics")
+            thread.start()
+            Handler(thread.looper)
+        }
+    }
+}
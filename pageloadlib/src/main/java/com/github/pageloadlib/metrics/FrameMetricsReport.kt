@@ -0,0 +1,59 @@
+package com.github.pageloadlib.metrics
+
+/**
+ * 一个列表页面在一次前台期间的帧耗时统计
+ *
+ * @param screenName 页面名称，对应FragmentGlobalConfig.frameMetricsScreenName
+ * @param frameBudgetMillis 按屏幕刷新率计算的单帧耗时上限，超过即为慢帧
+ * @param phases 各阶段的统计，没有帧的阶段不包含在内
+ */
+class FrameMetricsReport(
+    val screenName: String,
+    val frameBudgetMillis: Float,
+    val phases: Map<FramePhase, PhaseStats>
+) {
+
+    /**
+     * 单个阶段的帧耗时直方图
+     *
+     * @param histogram 第i项为耗时在[i, i + 1)毫秒的帧数，最后一项包含所有更慢的帧
+     * @param slowFrameCount 耗时超过frameBudgetMillis的帧数
+     */
+    class PhaseStats(
+        val histogram: IntArray,
+        val slowFrameCount: Int
+    ) {
+        /**
+         * 帧数
+         */
+        val frameCount: Int = histogram.sum()
+
+        val p50Millis: Int
+            get() = percentile(50)
+
+        val p90Millis: Int
+            get() = percentile(90)
+
+        val p99Millis: Int
+            get() = percentile(99)
+
+        /**
+         * 计算耗时的百分位数（毫秒，向下取整），没有帧时返回0
+         * @param percent 1~100
+         */
+        fun percentile(percent: Int): Int {
+            if (frameCount == 0) {
+                return 0
+            }
+            val target = (frameCount.toLong() * percent + 99) / 100
+            var cumulative = 0L
+            for (i in histogram.indices) {
+                cumulative += histogram[i]
+                if (cumulative >= target) {
+                    return i
+                }
+            }
+            return histogram.size - 1
+        }
+    }
+}
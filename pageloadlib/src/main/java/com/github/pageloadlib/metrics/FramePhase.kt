@@ -0,0 +1,36 @@
+package com.github.pageloadlib.metrics
+
+/**
+ * 帧所处的列表阶段，用于把慢帧归因到具体的操作
+ */
+enum class FramePhase {
+    /**
+     * 手指离开后的惯性滑动
+     */
+    FLING,
+
+    /**
+     * 加载更多或加载上一页的数据插入列表
+     */
+    LOAD_MORE_INSERT,
+
+    /**
+     * 刷新后整体替换列表
+     */
+    REFRESH,
+
+    /**
+     * 骨架屏隐藏并展示首屏内容
+     */
+    SKELETON_SWAP,
+
+    /**
+     * 底部加载更多状态变化
+     */
+    FOOTER_UPDATE,
+
+    /**
+     * 不属于以上阶段，例如手指拖动或者静止
+     */
+    OTHER
+}
@@ -0,0 +1,13 @@
+package com.github.pageloadlib.metrics
+
+/**
+ * 接收列表页面的帧耗时统计，在主线程回调
+ */
+interface OnFrameMetricsListener {
+
+    /**
+     * 页面离开前台时回调本次前台期间的统计，没有记录到帧时不回调
+     * @param report 帧耗时统计
+     */
+    fun onFrameMetrics(report: FrameMetricsReport)
+}
@@ -0,0 +1,57 @@
+package com.github.pageloadlib.net
+
+import android.content.Context
+import android.net.ConnectivityManager
+import android.net.Network
+import android.net.NetworkCapabilities
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+
+/**
+ * 网络连接状态监听
+ * 全局只注册一次默认网络回调，用于断网时暂停自动重试，网络恢复后再继续
+ */
+class ConnectivityObserver private constructor(context: Context) {
+
+    companion object {
+        @Volatile
+        private var INSTANCE: ConnectivityObserver? = null
+
+        fun getInstance(context: Context): ConnectivityObserver {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: ConnectivityObserver(context.applicationContext).also { INSTANCE = it }
+            }
+        }
+    }
+
+    private val connectivityManager = context.getSystemService(ConnectivityManager::class.java)
+
+    private val _isOnline = MutableStateFlow(checkOnline())
+
+    /**
+     * 当前是否有可用网络
+     */
+    val isOnline: StateFlow<Boolean> = _isOnline.asStateFlow()
+
+    init {
+        connectivityManager?.registerDefaultNetworkCallback(object : ConnectivityManager.NetworkCallback() {
+            override fun onAvailable(network: Network) {
+                _isOnline.value = true
+            }
+
+            override fun onLost(network: Network) {
+                _isOnline.value = false
+            }
+        })
+    }
+
+    /**
+     * 读取当前默认网络是否可以访问互联网
+     */
+    private fun checkOnline(): Boolean {
+        val manager = connectivityManager ?: return true
+        val capabilities = manager.getNetworkCapabilities(manager.activeNetwork) ?: return false
+        return capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.pageloadlib.net
+
+import android.os.SystemClock
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
+
+/**
+ * 提前发起的首页请求
+ *
+ * 在创建列表Fragment之前（例如点击入口时）调用[start]发起请求，Fragment通过FragmentGlobalConfig.earlyFetchKey
+ * 在首次请求首页时直接使用该请求的结果，网络请求与Fragment事务、布局加载并行
+ */
+object EarlyFetch {
+
+    // 提前请求的结果在该时间内有效，超时后Fragment重新请求
+    private const val MAX_AGE_MILLIS = 30_000L
+
+    private class Entry(val result: Deferred<List<ApiResponse<*>>>, val startMillis: Long)
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.Main.immediate)
+    private val entries = HashMap<String, Entry>()
+
+    /**
+     * 发起请求，相同key未被使用的请求会被取消
+     *
+     * @param key 与FragmentGlobalConfig.earlyFetchKey一致
+     * @param request 首页请求
+     */
+    fun <T> start(key: String, request: Flow<ApiResponse<T>>) {
+        val result = scope.async {
+            val responses = ArrayList<ApiResponse<*>>()
+            try {
+                request.flowOn(Dispatchers.IO).collect { responses.add(it) }
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                responses.add(ApiResponse.Error(e))
+            }
+            responses
+        }
+        synchronized(entries) {
+            entries.put(key, Entry(result, SystemClock.uptimeMillis()))
+        }?.result?.cancel()
+    }
+
+    /**
+     * 取出提前发起的请求，只能取出一次
+     *
+     * @param key 请求的key
+     * @return 按原顺序回放请求结果的数据流，没有请求或者已经过期时返回null
+     */
+    @Suppress("UNCHECKED_CAST")
+    fun <T> take(key: String): Flow<ApiResponse<T>>? {
+        val entry = synchronized(entries) { entries.remove(key) } ?: return null
+        if (SystemClock.uptimeMillis() - entry.startMillis > MAX_AGE_MILLIS) {
+            entry.result.cancel()
+            return null
+        }
+        return flow {
+            for (response in entry.result.await()) {
+                emit(response as ApiResponse<T>)
+            }
+        }
+    }
+
+    /**
+     * 取消提前发起的请求，例如用户没有进入列表页
+     */
+    fun cancel(key: String) {
+        synchronized(entries) { entries.remove(key) }?.result?.cancel()
+    }
+}
@@ -61,4 +61,18 @@ object NetworkExceptionHandler {
             else -> NetworkException.UnknownException(throwable.message ?: "未知错误", throwable)
         }
     }
+
+    /**
+     * 判断异常是否可以自动重试：网络连接、超时、服务端5xx和429可以重试，业务异常、解析异常和其他HTTP错误不重试
+     */
+    fun isRetryable(throwable: Throwable): Boolean {
+        return when (val exception = handleException(throwable)) {
+            is NetworkException.NetworkConnectionException,
+            is NetworkException.TimeoutException -> true
+            is NetworkException.HttpException -> exception.code >= 500 || exception.code == 429
+            // 未知异常只在底层是IO异常时重试
+            is NetworkException.UnknownException -> exception.cause is IOException
+            else -> false
+        }
+    }
 } 
\ No newline at end of file
@@ -13,6 +13,13 @@ interface OnProcessResponseListener<T> {
      */
     fun obtainListForAdapter(response: T?, currentItems: List<Any>?, isRefresh: Boolean): List<Any>
 
+    /**
+     * 追加模式下获取本页新增的数据，只需返回本页数据，无需拼接当前列表
+     * 返回null表示不支持增量追加，加载更多时回退到[obtainListForAdapter]
+     * @param response 返回数据
+     */
+    fun obtainAppendListForAdapter(response: T?): List<Any>? = null
+
     /**
      * 判断请求接口数据成功但是返回数据列表是[]
      * @param response 返回数据
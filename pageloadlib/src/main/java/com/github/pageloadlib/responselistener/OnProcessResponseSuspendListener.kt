@@ -0,0 +1,58 @@
+package com.github.pageloadlib.responselistener
+
+/**
+ * [OnProcessResponseListener]的挂起版本，在后台调度器上执行，可以在转换数据时进行异步操作
+ */
+interface OnProcessResponseSuspendListener<T> {
+
+    /**
+     * 获取的列表数据提供给Adapter渲染
+     * @param response 返回数据
+     * @param currentItems 当前列表数据
+     * @param isRefresh 是否刷新
+     */
+    suspend fun obtainListForAdapter(response: T?, currentItems: List<Any>?, isRefresh: Boolean): List<Any>
+
+    /**
+     * 追加模式下获取本页新增的数据，只需返回本页数据，无需拼接当前列表
+     * 返回null表示不支持增量追加，加载更多时回退到[obtainListForAdapter]
+     * @param response 返回数据
+     */
+    suspend fun obtainAppendListForAdapter(response: T?): List<Any>? = null
+
+    /**
+     * 判断请求接口数据成功但是返回数据列表是[]
+     * @param response 返回数据
+     */
+    suspend fun isRequestSuccessButDataEmpty(response: T?): Boolean
+
+    /**
+     * 判断加载更多完成
+     * @param response 返回数据
+     */
+    suspend fun isLoadMoreFinished(response: T?): Boolean
+
+}
+
+/**
+ * 把同步的监听接口包装为挂起版本
+ */
+fun <T> OnProcessResponseListener<T>.asSuspendListener(): OnProcessResponseSuspendListener<T> {
+    val listener = this
+    return object : OnProcessResponseSuspendListener<T> {
+        override suspend fun obtainListForAdapter(
+            response: T?,
+            currentItems: List<Any>?,
+            isRefresh: Boolean
+        ): List<Any> = listener.obtainListForAdapter(response, currentItems, isRefresh)
+
+        override suspend fun obtainAppendListForAdapter(response: T?): List<Any>? =
+            listener.obtainAppendListForAdapter(response)
+
+        override suspend fun isRequestSuccessButDataEmpty(response: T?): Boolean =
+            listener.isRequestSuccessButDataEmpty(response)
+
+        override suspend fun isLoadMoreFinished(response: T?): Boolean =
+            listener.isLoadMoreFinished(response)
+    }
+}
@@ -0,0 +1,235 @@
+package com.github.pageloadlib.viewmodel
+
+/**
+ * ViewModel内部持有的可变列表，数据按块存储，可以在不复制整个列表的情况下生成只读快照
+ *
+ * 生成快照时只复制块的引用，之后再修改某一块时先复制该块（写时复制），已经下发的快照不会变化，
+ * 因此追加一页、按key更新或删除一项的耗时与修改的数量和块的大小成正比，而不是与列表总数成正比
+ */
+internal class ChunkedItemList() : AbstractMutableList<Any>(), RandomAccess {
+
+    /**
+     * 一块数据
+     * @param epoch 创建该块时的快照代数，小于当前代数说明已经被快照引用，修改前需要复制
+     */
+    private class Chunk(val items: ArrayList<Any>, val epoch: Int)
+
+    private val chunks = ArrayList<Chunk>()
+
+    // 每一块第一项的位置，与chunks一一对应
+    private var chunkStarts = IntArray(INITIAL_CHUNK_CAPACITY)
+
+    private var itemCount = 0
+
+    // 快照代数，每生成一次快照加1
+    private var epoch = 0
+
+    constructor(items: Collection<Any>) : this() {
+        addAll(items)
+    }
+
+    override val size: Int
+        get() = itemCount
+
+    override fun get(index: Int): Any {
+        checkElementIndex(index)
+        val chunkIndex = findChunk(index)
+        return chunks[chunkIndex].items[index - chunkStarts[chunkIndex]]
+    }
+
+    override fun set(index: Int, element: Any): Any {
+        checkElementIndex(index)
+        val chunkIndex = findChunk(index)
+        val items = writableChunk(chunkIndex)
+        val local = index - chunkStarts[chunkIndex]
+        val old = items[local]
+        items[local] = element
+        return old
+    }
+
+    override fun add(index: Int, element: Any) {
+        addAll(index, listOf(element))
+    }
+
+    override fun addAll(elements: Collection<Any>): Boolean {
+        return addAll(itemCount, elements)
+    }
+
+    override fun addAll(index: Int, elements: Collection<Any>): Boolean {
+        if (index < 0 || index > itemCount) {
+            throw IndexOutOfBoundsException("Index: $index, Size: $itemCount")
+        }
+        if (elements.isEmpty()) {
+            return false
+        }
+        // 插入到所在的块，位于末尾时插入到最后一块
+        val chunkIndex = if (index == itemCount) chunks.size - 1 else findChunk(index)
+        if (chunkIndex < 0) {
+            insertChunks(0, ArrayList(elements))
+        } else {
+            val chunk = chunks[chunkIndex]
+            val local = index - chunkStarts[chunkIndex]
+            if (chunk.items.size + elements.size <= MAX_CHUNK_SIZE) {
+                writableChunk(chunkIndex).addAll(local, elements)
+            } else {
+                // 超过上限时和原来的块一起重新分块，只涉及这一块
+                val merged = ArrayList<Any>(chunk.items.size + elements.size)
+                merged.addAll(chunk.items.subList(0, local))
+                merged.addAll(elements)
+                merged.addAll(chunk.items.subList(local, chunk.items.size))
+                chunks.removeAt(chunkIndex)
+                insertChunks(chunkIndex, merged)
+            }
+        }
+        itemCount += elements.size
+        rebuildChunkStarts(chunkIndex.coerceAtLeast(0))
+        return true
+    }
+
+    override fun removeAt(index: Int): Any {
+        val old = get(index)
+        removeRange(index, index + 1)
+        return old
+    }
+
+    override fun removeRange(fromIndex: Int, toIndex: Int) {
+        if (fromIndex < 0 || toIndex > itemCount || fromIndex > toIndex) {
+            throw IndexOutOfBoundsException("From: $fromIndex, To: $toIndex, Size: $itemCount")
+        }
+        if (fromIndex == toIndex) {
+            return
+        }
+        val firstChunk = findChunk(fromIndex)
+        val lastChunk = findChunk(toIndex - 1)
+        // 从后往前处理，前面的块的位置不受影响
+        for (chunkIndex in lastChunk downTo firstChunk) {
+            val start = chunkStarts[chunkIndex]
+            val chunkSize = chunks[chunkIndex].items.size
+            val localFrom = (fromIndex - start).coerceAtLeast(0)
+            val localTo = minOf(toIndex - start, chunkSize)
+            if (localFrom == 0 && localTo == chunkSize) {
+                // 整块删除，不需要复制
+                chunks.removeAt(chunkIndex)
+            } else {
+                writableChunk(chunkIndex).subList(localFrom, localTo).clear()
+            }
+        }
+        itemCount -= toIndex - fromIndex
+        rebuildChunkStarts(firstChunk)
+    }
+
+    override fun clear() {
+        chunks.clear()
+        itemCount = 0
+    }
+
+    /**
+     * 生成只读快照，只复制块的引用，耗时与块数成正比
+     */
+    fun snapshot(): List<Any> {
+        val snapshot = Snapshot(
+            Array(chunks.size) { chunks[it].items },
+            chunkStarts.copyOf(chunks.size),
+            itemCount
+        )
+        // 已有的块都被快照引用，之后修改前需要复制
+        epoch++
+        return snapshot
+    }
+
+    /**
+     * 获取可以修改的块，已经被快照引用时先复制
+     */
+    private fun writableChunk(chunkIndex: Int): ArrayList<Any> {
+        val chunk = chunks[chunkIndex]
+        if (chunk.epoch == epoch) {
+            return chunk.items
+        }
+        val copy = Chunk(ArrayList(chunk.items), epoch)
+        chunks[chunkIndex] = copy
+        return copy.items
+    }
+
+    /**
+     * 把数据按块大小切分后插入到指定位置
+     */
+    private fun insertChunks(chunkIndex: Int, items: List<Any>) {
+        var index = chunkIndex
+        var from = 0
+        while (from < items.size) {
+            val to = minOf(from + SPLIT_CHUNK_SIZE, items.size)
+            chunks.add(index++, Chunk(ArrayList(items.subList(from, to)), epoch))
+            from = to
+        }
+    }
+
+    /**
+     * 查找位置所在的块
+     */
+    private fun findChunk(index: Int): Int {
+        return findChunk(chunkStarts, chunks.size, index)
+    }
+
+    /**
+     * 从指定块开始重新计算起始位置
+     */
+    private fun rebuildChunkStarts(from: Int) {
+        if (chunkStarts.size < chunks.size) {
+            chunkStarts = chunkStarts.copyOf(maxOf(chunks.size, chunkStarts.size * 2))
+        }
+        for (i in from until chunks.size) {
+            chunkStarts[i] = if (i == 0) 0 else chunkStarts[i - 1] + chunks[i - 1].items.size
+        }
+    }
+
+    private fun checkElementIndex(index: Int) {
+        if (index < 0 || index >= itemCount) {
+            throw IndexOutOfBoundsException("Index: $index, Size: $itemCount")
+        }
+    }
+
+    /**
+     * 只读快照，引用的块之后不会再被修改
+     */
+    private class Snapshot(
+        private val chunks: Array<ArrayList<Any>>,
+        private val chunkStarts: IntArray,
+        override val size: Int
+    ) : AbstractList<Any>(), RandomAccess {
+
+        override fun get(index: Int): Any {
+            if (index < 0 || index >= size) {
+                throw IndexOutOfBoundsException("Index: $index, Size: $size")
+            }
+            val chunkIndex = findChunk(chunkStarts, chunks.size, index)
+            return chunks[chunkIndex][index - chunkStarts[chunkIndex]]
+        }
+    }
+
+    companion object {
+        private const val INITIAL_CHUNK_CAPACITY = 8
+
+        // 每块最多的数量，超出时重新分块
+        private const val MAX_CHUNK_SIZE = 256
+
+        // 重新分块时每块的数量，留出插入的空间
+        private const val SPLIT_CHUNK_SIZE = MAX_CHUNK_SIZE / 2
+
+        /**
+         * 二分查找位置所在的块
+         */
+        private fun findChunk(chunkStarts: IntArray, chunkCount: Int, index: Int): Int {
+            var low = 0
+            var high = chunkCount - 1
+            while (low < high) {
+                val mid = (low + high + 1) ushr 1
+                if (chunkStarts[mid] <= index) {
+                    low = mid
+                } else {
+                    high = mid - 1
+                }
+            }
+            return low
+        }
+    }
+}
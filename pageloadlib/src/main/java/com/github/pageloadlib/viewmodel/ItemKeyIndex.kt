@@ -0,0 +1,147 @@
+package com.github.pageloadlib.viewmodel
+
+import androidx.annotation.VisibleForTesting
+
+/**
+ * item的key到数据位置的索引，随列表变化增量维护
+ *
+ * 只有[0, indexedCount)区间内的记录是可信的，之后的部分在下一次查找时再补齐。
+ * 改变数量的修改不会重建或截断已有的记录：修改记入日志，记录的位置在查找时按日志顺延，
+ * 落在被删除区间内的记录在查找时丢弃，因此删除一项或在开头插入数据后查找的耗时与修改的数量成正比
+ *
+ * @param keyOf 获取item的key，返回null表示没有key
+ */
+internal class ItemKeyIndex(private val keyOf: (Any) -> Any?) {
+
+    /**
+     * 一条记录
+     * @param version 记录位置时的修改版本，之后的修改需要在查找时应用
+     */
+    private class Entry(var position: Int, var version: Int)
+
+    /**
+     * 一次改变数量的修改：从start开始的removeCount项被替换为insertCount项
+     */
+    private class Edit(val start: Int, val removeCount: Int, val insertCount: Int)
+
+    private val positions = HashMap<Any, Entry>()
+
+    // 还没有应用到所有记录的修改
+    private val edits = ArrayList<Edit>()
+
+    // 已建立索引的数量
+    private var indexedCount = 0
+
+    // 当前的修改版本
+    private val version: Int
+        get() = edits.size
+
+    /**
+     * 记录的数量，包括还没有丢弃的已删除key
+     */
+    @get:VisibleForTesting
+    internal val entryCount: Int
+        get() = positions.size
+
+    /**
+     * 列表被整体替换
+     */
+    fun reset() {
+        positions.clear()
+        edits.clear()
+        indexedCount = 0
+    }
+
+    /**
+     * 列表的局部变化，在列表修改之后调用
+     *
+     * @param start 变化的起始位置
+     * @param removeCount 被替换的数量
+     * @param items 新的数据
+     */
+    fun onChanged(start: Int, removeCount: Int, items: List<Any>) {
+        if (start >= indexedCount) {
+            return
+        }
+        val end = start + removeCount
+        if (removeCount != items.size) {
+            edits.add(Edit(start, removeCount, items.size))
+            if (end > indexedCount) {
+                // 修改超出了可信区间，之后的部分重新补齐
+                indexedCount = start
+                trimIfNeeded()
+                return
+            }
+            indexedCount += items.size - removeCount
+        }
+        // 新数据落在可信区间内，直接记录
+        val count = minOf(items.size, indexedCount - start)
+        for (i in 0 until count) {
+            keyOf(items[i])?.let { positions[it] = Entry(start + i, version) }
+        }
+        trimIfNeeded()
+    }
+
+    /**
+     * 查找key对应的数据位置，没有找到时返回-1
+     *
+     * @param items 当前列表
+     */
+    fun indexOf(items: List<Any>, key: Any): Int {
+        indexedCount = minOf(indexedCount, items.size)
+        val entry = positions[key]
+        if (entry != null) {
+            val position = resolve(entry)
+            if (position in 0 until indexedCount && keyOf(items[position]) == key) {
+                return position
+            }
+            // 记录已经失效（被删除或被替换），可信区间内的key一定有正确的记录
+            positions.remove(key)
+        }
+        // 补齐还没有建立索引的部分，找到即返回
+        while (indexedCount < items.size) {
+            val position = indexedCount++
+            val itemKey = keyOf(items[position]) ?: continue
+            positions[itemKey] = Entry(position, version)
+            if (itemKey == key) {
+                return position
+            }
+        }
+        return -1
+    }
+
+    /**
+     * 把记录之后的修改应用到记录的位置上
+     *
+     * @return 当前位置，记录所在的位置已被删除时返回-1
+     */
+    private fun resolve(entry: Entry): Int {
+        var position = entry.position
+        for (i in entry.version until edits.size) {
+            val edit = edits[i]
+            if (position >= edit.start + edit.removeCount) {
+                position += edit.insertCount - edit.removeCount
+            } else if (position >= edit.start) {
+                return -1
+            }
+        }
+        entry.position = position
+        entry.version = version
+        return position
+    }
+
+    /**
+     * 修改日志或已删除的记录积累过多时重新建立索引，重建的耗时分摊到之前的每次修改上
+     */
+    private fun trimIfNeeded() {
+        val limit = MIN_TRIM_THRESHOLD + indexedCount / 8
+        if (edits.size > limit || positions.size > indexedCount + limit) {
+            reset()
+        }
+    }
+
+    companion object {
+        // 修改日志和已删除记录的最小容量
+        private const val MIN_TRIM_THRESHOLD = 64
+    }
+}
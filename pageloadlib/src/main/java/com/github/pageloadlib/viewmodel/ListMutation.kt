@@ -0,0 +1,188 @@
+package com.github.pageloadlib.viewmodel
+
+/**
+ * 批量修改列表：所有修改立即作用在列表上，同时把相邻或重叠的修改合并为尽量少的区间变化，
+ * 修改结束后一次性下发，UI层只需要按区间局部刷新
+ *
+ * 位置均为数据位置，后一个修改基于前一个修改之后的列表
+ */
+class ListMutation internal constructor(private val items: MutableList<Any>) {
+
+    /**
+     * 一次区间变化：从start开始的removeCount项被替换为items
+     *
+     * @param isUpdate 是否为数量不变的内容更新，只有更新可以携带payload
+     */
+    internal class Operation(
+        var start: Int,
+        var removeCount: Int,
+        val items: MutableList<Any>,
+        var isUpdate: Boolean = false,
+        var payload: Any? = null
+    ) {
+        // 变化后在新列表中的区间结束位置
+        val end: Int
+            get() = start + items.size
+    }
+
+    internal val operations = ArrayList<Operation>()
+
+    // 是否有改变数量的修改
+    internal var hasStructuralChange = false
+        private set
+
+    /**
+     * 当前数据数量
+     */
+    val size: Int
+        get() = items.size
+
+    /**
+     * 获取指定位置的数据
+     */
+    operator fun get(index: Int): Any {
+        return items[index]
+    }
+
+    /**
+     * 查找第一个满足条件的数据位置，没有时返回-1
+     */
+    fun indexOfFirst(predicate: (Any) -> Boolean): Int {
+        return items.indexOfFirst(predicate)
+    }
+
+    /**
+     * 在末尾追加数据
+     */
+    fun add(item: Any) {
+        insert(items.size, listOf(item))
+    }
+
+    /**
+     * 在指定位置插入数据
+     */
+    fun insert(index: Int, newItems: List<Any>) {
+        checkIndex(index, items.size)
+        if (newItems.isEmpty()) {
+            return
+        }
+        items.addAll(index, newItems)
+        hasStructuralChange = true
+        val last = operations.lastOrNull()
+        if (last != null && index in last.start..last.end) {
+            // 插入位置落在上一次变化的区间内或紧邻区间
+            last.items.addAll(index - last.start, newItems)
+            last.isUpdate = false
+            last.payload = null
+        } else {
+            operations.add(Operation(index, 0, ArrayList(newItems)))
+        }
+    }
+
+    /**
+     * 删除从index开始的count项
+     */
+    fun remove(index: Int, count: Int = 1) {
+        checkIndex(index, items.size)
+        checkIndex(index + count, items.size)
+        if (count <= 0) {
+            return
+        }
+        items.subList(index, index + count).clear()
+        hasStructuralChange = true
+        val end = index + count
+        val last = operations.lastOrNull()
+        if (last != null && index <= last.end && end >= last.start) {
+            // 与上一次变化的区间重叠或相邻：区间内的部分从新数据中去掉，区间外的部分扩展删除范围
+            val before = (last.start - index).coerceAtLeast(0)
+            val after = (end - last.end).coerceAtLeast(0)
+            val innerStart = maxOf(index, last.start) - last.start
+            val innerCount = count - before - after
+            last.items.subList(innerStart, innerStart + innerCount).clear()
+            last.start -= before
+            last.removeCount += before + after
+            last.isUpdate = false
+            last.payload = null
+        } else {
+            operations.add(Operation(index, count, ArrayList()))
+        }
+    }
+
+    /**
+     * 删除所有满足条件的数据，从后往前按连续区间删除
+     *
+     * @return 删除的数量
+     */
+    fun removeIf(predicate: (Any) -> Boolean): Int {
+        var removed = 0
+        var index = items.size - 1
+        while (index >= 0) {
+            if (!predicate(items[index])) {
+                index--
+                continue
+            }
+            var start = index
+            while (start > 0 && predicate(items[start - 1])) {
+                start--
+            }
+            val count = index - start + 1
+            remove(start, count)
+            removed += count
+            index = start - 1
+        }
+        return removed
+    }
+
+    /**
+     * 移动数据，拆分为删除和插入
+     */
+    fun move(from: Int, to: Int) {
+        checkIndex(from, items.size - 1)
+        checkIndex(to, items.size - 1)
+        if (from == to) {
+            return
+        }
+        val item = items[from]
+        remove(from)
+        insert(to, listOf(item))
+    }
+
+    /**
+     * 替换指定位置的数据
+     *
+     * @param payload 变化的内容，传给ItemViewBinder.onBindViewHolder(holder, item, payloads)只更新变化的字段，
+     * 为null时完整重新绑定
+     */
+    fun update(index: Int, item: Any, payload: Any? = null) {
+        checkIndex(index, items.size - 1)
+        items[index] = item
+        val last = operations.lastOrNull()
+        when {
+            last != null && index in last.start until last.end -> {
+                last.items[index - last.start] = item
+                if (last.isUpdate && last.payload != payload) {
+                    last.payload = null
+                }
+            }
+
+            last != null && last.isUpdate && last.payload == payload && (index == last.end || index == last.start - 1) -> {
+                // 与上一次更新相邻且payload相同，合并为一个区间
+                if (index == last.end) {
+                    last.items.add(item)
+                } else {
+                    last.items.add(0, item)
+                    last.start = index
+                }
+                last.removeCount++
+            }
+
+            else -> operations.add(Operation(index, 1, arrayListOf(item), true, payload))
+        }
+    }
+
+    private fun checkIndex(index: Int, maxIndex: Int) {
+        if (index < 0 || index > maxIndex) {
+            throw IndexOutOfBoundsException("Index: $index, Size: ${items.size}")
+        }
+    }
+}
@@ -1,21 +1,41 @@
 package com.github.pageloadlib.viewmodel
 
-import androidx.lifecycle.MutableLiveData
+import android.os.Bundle
+import android.os.SystemClock
+import androidx.core.os.bundleOf
+import androidx.lifecycle.SavedStateHandle
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import com.github.pageloadlib.adapter.PagePlaceholderViewBinder
+import com.github.pageloadlib.cache.PageCache
 import com.github.pageloadlib.event.EntityUIEvent
+import com.github.pageloadlib.event.ListChangeEvent
 import com.github.pageloadlib.net.ApiResponse
+import com.github.pageloadlib.net.ConnectivityObserver
 import com.github.pageloadlib.net.NetworkException
-import com.github.pageloadlib.responselistener.OnProcessResponseListener
+import com.github.pageloadlib.net.NetworkExceptionHandler
+import com.github.pageloadlib.responselistener.OnProcessResponseSuspendListener
+import com.google.gson.Gson
 import kotlinx.coroutines.*
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
 import kotlinx.coroutines.flow.catch
+import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.update
+import java.lang.reflect.Type
+import kotlin.coroutines.EmptyCoroutineContext
 
 /**
  * 带分页加载功能的列表ViewModel
+ *
+ * @param savedStateHandle 保存分页快照，进程被回收后恢复到原来的位置
  */
-class LoadMoreListFragmentViewModel<T> : ViewModel() {
+class LoadMoreListFragmentViewModel<T>(private val savedStateHandle: SavedStateHandle) : ViewModel() {
+
+    constructor() : this(SavedStateHandle())
     
     // 用于取消网络请求的Job
     private var requestJob: Job? = null
@@ -23,26 +43,214 @@ class LoadMoreListFragmentViewModel<T> : ViewModel() {
     // 调试模式开关
     var debug: Boolean = false
     
+    // 列表状态，所有状态变化都通过整体替换完成
+    private val _pagingState = MutableStateFlow(PagingState())
+
+    // ViewModel内部持有的可变列表，加载更多、淘汰和批量修改都在其上原地修改，
+    // 每次变化后生成只读快照下发，快照与列表共用没有修改的块，已经下发的状态不会再变化
+    private var workingItems: ChunkedItemList? = null
+
+    // 对外暴露的只读列表状态
+    val pagingState: StateFlow<PagingState> = _pagingState.asStateFlow()
+
     // 当前是否为刷新请求
-    var isRefresh: Boolean = true
-    
+    val isRefresh: Boolean
+        get() = _pagingState.value.isRefresh
+
     // 当前是否正在加载
-    var isLoading: Boolean = false
-    
+    val isLoading: Boolean
+        get() = _pagingState.value.isLoading
+
     // 是否发生网络错误
-    var isNetworkError: Boolean = false
-    
+    val isNetworkError: Boolean
+        get() = _pagingState.value.isNetworkError
+
     // 当前页码索引
-    var currentPageIndex: Int = 0
-    
-    // 列表数据LiveData
-    val listLiveData = MutableLiveData<List<Any>?>()
-    
-    // UI事件LiveData
-    val eventLiveData = MutableLiveData<EntityUIEvent>()
+    var currentPageIndex: Int
+        get() = _pagingState.value.currentPageIndex
+        set(value) {
+            _pagingState.update { it.copy(currentPageIndex = value) }
+        }
+
+    // 第一页的页码，用于判断是否还有上一页
+    var firstPageIndex: Int = 1
+
+    // 已加载的最小页码，加载上一页时使用
+    var firstLoadedPageIndex: Int = 0
+        private set
+
+    // 是否支持加载上一页
+    var loadPreviousEnabled: Boolean = false
+
+    // 当前是否正在加载上一页，与加载更多互不影响
+    val isLoadingPrevious: Boolean
+        get() = _pagingState.value.isLoadingPrevious
+
+    // 用于取消加载上一页请求的Job
+    private var previousJob: Job? = null
+
+    // 用于取消合并刷新请求的Job
+    private var headMergeJob: Job? = null
+
+    // 进行中刷新请求的页码，刷新可以从任意页开始
+    private var refreshPageIndex: Int = 1
+
+    // 追加模式：加载更多时只下发本页增量数据
+    var appendMode: Boolean = false
+
+    // 窗口模式下最多常驻内存的页数，0表示不限制，需要配合追加模式使用
+    // 视图重建时会重复设置，值不变时保留已有的分页区间，否则已淘汰的页无法再重新加载
+    var maxResidentPages: Int = 0
+        set(value) {
+            if (field == value) {
+                return
+            }
+            field = value
+            val window = pageWindow
+            if (window != null) {
+                // 上限为0时不再淘汰，已淘汰的页滑回时仍然重新加载
+                window.maxResidentPages = value
+            } else if (value > 0) {
+                pageWindow = PageWindow(value)
+            }
+        }
+
+    // 分页窗口，记录每一页在列表中的区间
+    private var pageWindow: PageWindow? = null
+
+    // 重新加载已淘汰分页的Job，key为页码
+    private val refetchJobs = HashMap<Int, Job>()
+
+    // 当前可见区域，-1表示未知
+    private var firstVisiblePosition = -1
+    private var lastVisiblePosition = -1
+
+    // 列表版本，列表被替换或原地修改时递增，UI层据此判断增量变化能否直接应用
+    val listVersion: Int
+        get() = _pagingState.value.listVersion
+
+    // 预取深度：最多提前请求并暂存的页数，0表示不预取
+    var prefetchDepth: Int = 0
+
+    // 预取的分页数据暂存区，按页码升序排列
+    private val prefetchBuffer = ArrayDeque<PrefetchedPage<T>>()
+
+    // 用于取消预取请求的Job
+    private var prefetchJob: Job? = null
+
+    // 正在预取的页码，-1表示没有预取中的请求
+    private var prefetchingPageIndex = -1
+
+    // 加载更多命中了正在预取的页，预取返回后直接提交到列表
+    private var commitPrefetchOnArrival = false
+
+    // 预取已经到达最后一页
+    private var prefetchReachedEnd = false
+
+    // 分页缓存，为null表示不使用缓存
+    var pageCache: PageCache? = null
+
+    // 缓存对应的请求标识
+    var pageCacheIdentity: String? = null
+
+    // 缓存数据类型，为null时只使用内存缓存
+    var pageCacheType: Type? = null
+
+    // 进行中刷新请求对应的缓存key，请求成功后写入缓存
+    private var pendingCacheKey: String? = null
+
+    // 当前列表是否来自缓存，刷新失败时保留缓存内容
+    private var isShowingCachedPage = false
+
+    // 用于取消读取磁盘缓存的Job
+    private var cacheRestoreJob: Job? = null
+
+    // 进行中请求的key（页码）
+    private var inFlightKey: Any? = null
+
+    // 进行中请求的参数，自动重试时使用
+    private var inFlightParams: Map<String, Any> = emptyMap()
+
+    // 加载更多失败后自动重试的次数上限，0表示不自动重试
+    var autoRetryCount: Int = 0
+
+    // 自动重试的初始间隔，之后每次翻倍
+    var autoRetryBaseDelayMillis: Long = 1000
+
+    // 自动重试的最大间隔
+    var autoRetryMaxDelayMillis: Long = 30000
+
+    // 网络连接状态，断网时暂停自动重试，为null表示不感知网络状态
+    var connectivityObserver: ConnectivityObserver? = null
+
+    // 当前页已经自动重试的次数，加载成功或重新发起请求时清零
+    private var retryAttempt = 0
+
+    // 等待自动重试的Job
+    private var retryJob: Job? = null
+
+    // 最近分页请求的耗时
+    private val pageLatencyTracker = PageLatencyTracker(LATENCY_SAMPLE_SIZE)
+
+    // 最近分页请求耗时的p90，没有样本时为0，用于自适应触发加载更多
+    val pageLatencyP90Millis: Long
+        get() = pageLatencyTracker.p90Millis
+
+    // 加载更多触发时合并到进行中同一页请求的次数
+    var joinedRequestCount: Int = 0
+        private set
+
+    // 进行中请求被刷新或者另一页的加载更多抢占取消的次数
+    var preemptedRequestCount: Int = 0
+        private set
+
+    // 刷新进行中时加载更多被拒绝的次数
+    var rejectedRequestCount: Int = 0
+        private set
+
+    // 最近一次请求的参数，用于构造预取请求
+    private var lastParams: Map<String, Any> = emptyMap()
+
+    // 预取、重新加载和自动重试使用的请求函数和监听，通常引用Fragment，视图销毁时清空，避免持有已销毁的Fragment
+    private var lastRequestData: ((Map<String, Any>) -> Flow<ApiResponse<T>>)? = null
+    private var lastListener: OnProcessResponseSuspendListener<T>? = null
+
+    // 处理接口返回数据的调度器，只有最终的列表切回主线程
+    var processDispatcher: CoroutineDispatcher = Dispatchers.Default
+
+    // 是否保存分页快照
+    var savedStateEnabled: Boolean = false
+
+    // 快照中保存起始页接口数据的字节上限，0表示只保存页码和位置
+    var savedStateByteBudget: Int = 0
+
+    // 进程被回收前保存的快照，只能读取一次
+    private var restoredSnapshot: Bundle? = savedStateHandle.get<Bundle>(KEY_SAVED_SNAPSHOT)
+
+    // 第一个可见item的数据位置和偏移，滑动停止时更新
+    private var anchorPosition = -1
+    private var anchorOffset = 0
+
+    // 已加载页的接口数据，key为页码，只在需要保存接口数据时记录
+    private val loadedResponses = HashMap<Int, T>()
+
+    // key到数据位置的索引，为null表示无法获取item的key
+    private var itemKeyIndex: ItemKeyIndex? = null
+
+    // 获取item的key，用于按key查找数据位置
+    var itemKeyProvider: ((Any) -> Any?)? = null
+        set(value) {
+            field = value
+            itemKeyIndex = value?.let { ItemKeyIndex(it) }
+        }
+
+    init {
+        savedStateHandle.remove<Bundle>(KEY_SAVED_SNAPSHOT)
+        savedStateHandle.setSavedStateProvider(KEY_SAVED_SNAPSHOT) { buildSnapshot() }
+    }
 
     /**
-     * 请求列表接口数据并更新LiveData
+     * 请求列表接口数据并更新列表状态
      * @param params 请求接口的参数map
      * @param requestData 请求的函数，返回Flow<ApiResponse<T>>
      * @param isRefresh 是否刷新
@@ -52,15 +260,151 @@ class LoadMoreListFragmentViewModel<T> : ViewModel() {
         params: Map<String, Any>,
         requestData: (Map<String, Any>) -> Flow<ApiResponse<T>>,
         isRefresh: Boolean,
-        listener: OnProcessResponseListener<T>
+        listener: OnProcessResponseSuspendListener<T>
+    ) {
+        if (isLoading) {
+            val key = params[KEY_PAGE]
+            if (!isRefresh) {
+                if (this.isRefresh) {
+                    // 刷新进行中时由刷新结果决定下一页，加载更多被拒绝
+                    rejectedRequestCount++
+                    if (debug) {
+                        println("LoadMoreListFragmentViewModel: reject page $key, refresh in flight")
+                    }
+                    return
+                }
+                if (key == inFlightKey) {
+                    // 同一页的重复触发直接合并到进行中的请求
+                    joinedRequestCount++
+                    if (debug) {
+                        println("LoadMoreListFragmentViewModel: join page $key")
+                    }
+                    return
+                }
+                // 请求了另一页，进行中的加载更多已经过时，取消后请求新的一页
+                commitPrefetchOnArrival = false
+                if (debug) {
+                    println("LoadMoreListFragmentViewModel: page $key preempts page $inFlightKey")
+                }
+            }
+            preemptedRequestCount++
+        }
+        cancelRetry()
+        retryAttempt = 0
+        lastParams = HashMap(params)
+        bindRequest(requestData, listener)
+
+        if (isRefresh) {
+            // 刷新时丢弃所有预取的数据和重新加载中的分页
+            clearPrefetch()
+            cancelRefetch()
+            cancelPreviousRequest()
+            cancelHeadMerge()
+            refreshPageIndex = params[KEY_PAGE] as? Int ?: 1
+            launchRequest(params, requestData, true, listener)
+            restoreCachedPage(params, listener)
+        } else if (!commitPrefetchedPage(params[KEY_PAGE], listener)) {
+            launchRequest(params, requestData, false, listener)
+        }
+    }
+
+    /**
+     * 绑定预取、重新加载和自动重试使用的请求函数和监听，视图重建后调用，发起请求时也会重新绑定
+     * @param requestData 请求的函数，返回Flow<ApiResponse<T>>
+     * @param listener 监听接口
+     */
+    fun bindRequest(
+        requestData: (Map<String, Any>) -> Flow<ApiResponse<T>>,
+        listener: OnProcessResponseSuspendListener<T>
+    ) {
+        lastRequestData = requestData
+        lastListener = listener
+    }
+
+    /**
+     * 视图销毁时调用：取消所有请求并清空请求函数和监听，ViewModel在配置变化后继续存在，
+     * 不能再持有已销毁的Fragment
+     */
+    fun onViewDestroyed() {
+        cancelRequest()
+    }
+
+    /**
+     * 刷新时列表还没有数据则先展示缓存，接口返回后再替换为最新数据
+     */
+    private fun restoreCachedPage(params: Map<String, Any>, listener: OnProcessResponseSuspendListener<T>) {
+        val cache = pageCache ?: return
+        val identity = pageCacheIdentity ?: return
+        val key = PageCache.buildKey(identity, params)
+        pendingCacheKey = key
+        cacheRestoreJob?.cancel()
+        if (_pagingState.value.items != null) {
+            return
+        }
+        cacheRestoreJob = viewModelScope.launch {
+            val data = cache.getFromMemory<T>(key) ?: cache.get<T>(key, pageCacheType) ?: return@launch
+            val page = withContext(processDispatcher) {
+                ProcessedPage(
+                    listener.isLoadMoreFinished(data),
+                    false,
+                    listener.obtainListForAdapter(data, null, true),
+                    false
+                )
+            }
+            // 接口已经返回则不再展示缓存
+            val state = _pagingState.value
+            if (state.isLoading && state.isRefresh && state.items == null) {
+                showCachedPage(page)
+            }
+        }
+    }
+
+    /**
+     * 展示缓存数据，不更新页码
+     */
+    private fun showCachedPage(page: ProcessedPage) {
+        isShowingCachedPage = true
+        val list = page.items
+        val footerState = if (page.isFinished) {
+            EntityUIEvent.EventType.LOAD_FINISH
+        } else {
+            EntityUIEvent.EventType.LOADING
+        }
+        pageWindow?.invalidate()
+        publishList(list) {
+            it.copy(footerState = footerState)
+        }
+    }
+
+    /**
+     * 刷新成功后写入缓存
+     */
+    private fun savePageCache(data: T?) {
+        val key = pendingCacheKey ?: return
+        pendingCacheKey = null
+        if (data != null) {
+            pageCache?.put(key, data, pageCacheType)
+        }
+    }
+
+    /**
+     * 发起网络请求，会取消之前的请求
+     */
+    private fun launchRequest(
+        params: Map<String, Any>,
+        requestData: (Map<String, Any>) -> Flow<ApiResponse<T>>,
+        isRefresh: Boolean,
+        listener: OnProcessResponseSuspendListener<T>
     ) {
         // 取消之前的请求
         requestJob?.cancel()
-        
-        this.isRefresh = isRefresh
-        this.isLoading = true
-        this.isNetworkError = false
-        
+
+        _pagingState.update { it.copy(isRefresh = isRefresh, isLoading = true, error = null) }
+        this.inFlightKey = params[KEY_PAGE]
+        // 调用方会复用参数map，复制一份供自动重试使用
+        this.inFlightParams = HashMap(params)
+        val startMillis = SystemClock.uptimeMillis()
+
         requestJob = viewModelScope.launch(
             CoroutineExceptionHandler { _, throwable ->
                 if (debug) {
@@ -82,7 +426,17 @@ class LoadMoreListFragmentViewModel<T> : ViewModel() {
                     }
                     .collect { response ->
                         handleApiResponse(response, listener)
+                        if (response is ApiResponse.Success) {
+                            // 包含数据转换的耗时，即从发起请求到列表可以展示的时间
+                            pageLatencyTracker.record(SystemClock.uptimeMillis() - startMillis)
+                        }
                     }
+                // 数据流结束但没有返回结果，重置加载状态，避免阻塞后续的加载更多；等待自动重试时保持加载中
+                if (retryJob == null) {
+                    _pagingState.update { it.copy(isLoading = false) }
+                }
+            } catch (e: CancellationException) {
+                throw e
             } catch (e: Exception) {
                 if (debug) {
                     e.printStackTrace()
@@ -95,13 +449,362 @@ class LoadMoreListFragmentViewModel<T> : ViewModel() {
             }
         }
     }
+
+    /**
+     * 加载上一页数据，与加载更多可以同时进行，刷新时会被取消
+     * @param params 请求接口的参数map，页码为firstLoadedPageIndex - 1
+     * @param requestData 请求的函数，返回Flow<ApiResponse<T>>
+     * @param listener 监听接口，通过obtainAppendListForAdapter获取该页数据
+     */
+    fun requestPreviousData(
+        params: Map<String, Any>,
+        requestData: (Map<String, Any>) -> Flow<ApiResponse<T>>,
+        listener: OnProcessResponseSuspendListener<T>
+    ) {
+        // 刷新进行中时不加载上一页，由刷新结果决定起始页
+        if (isLoadingPrevious || (isLoading && isRefresh)) {
+            return
+        }
+        val pageIndex = params[KEY_PAGE] as? Int ?: return
+        _pagingState.update { it.copy(isLoadingPrevious = true) }
+        previousJob = viewModelScope.launch {
+            val response = try {
+                requestData(params)
+                    .flowOn(Dispatchers.IO)
+                    .first { it !is ApiResponse.Loading }
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                ApiResponse.Error(e)
+            }
+            val pageItems = if (response is ApiResponse.Success) {
+                withContext(processDispatcher) {
+                    listener.obtainAppendListForAdapter(response.data)
+                }
+            } else {
+                null
+            }
+            if (pageItems != null) {
+                recordPageResponse(pageIndex, (response as ApiResponse.Success).data)
+                prependPageItems(pageIndex, pageItems)
+            } else {
+                if (debug) {
+                    println("LoadMoreListFragmentViewModel: load previous page $pageIndex failed")
+                }
+                _pagingState.update {
+                    it.copy(isLoadingPrevious = false, headerState = EntityUIEvent.EventType.LOAD_MORE_FAILED)
+                }
+            }
+        }
+    }
+
+    /**
+     * 合并刷新：请求比当前第一项更新的数据，只把新增的部分插入到列表开头，已加载的页保持不变
+     * 请求参数中会带上当前第一项的key（KEY_TOP_KEY），接口不支持时返回第一页也可以，按key去掉已有的数据
+     *
+     * @param params 请求接口的参数map，页码为第一页
+     * @param requestData 请求的函数，返回Flow<ApiResponse<T>>
+     * @param listener 监听接口，优先通过obtainAppendListForAdapter获取新数据
+     * @return false表示无法合并（列表为空、没有key或者正在刷新），需要按普通刷新处理
+     */
+    fun requestHeadMerge(
+        params: Map<String, Any>,
+        requestData: (Map<String, Any>) -> Flow<ApiResponse<T>>,
+        listener: OnProcessResponseSuspendListener<T>
+    ): Boolean {
+        val topKey = workingItems?.firstOrNull()?.let { itemKeyProvider?.invoke(it) }
+        if (topKey == null || (isLoading && isRefresh)) {
+            return false
+        }
+        if (headMergeJob?.isActive == true) {
+            return true
+        }
+        val mergeParams = HashMap(params).apply {
+            put(KEY_TOP_KEY, topKey)
+        }
+        headMergeJob = viewModelScope.launch {
+            val response = try {
+                requestData(mergeParams)
+                    .flowOn(Dispatchers.IO)
+                    .first { it !is ApiResponse.Loading }
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                ApiResponse.Error(e)
+            }
+            if (response !is ApiResponse.Success) {
+                if (debug) {
+                    println("LoadMoreListFragmentViewModel: head merge failed")
+                }
+                _pagingState.update { it.copy(headMergeSerial = it.headMergeSerial + 1, headMergeCount = -1) }
+                return@launch
+            }
+            val newItems = withContext(processDispatcher) {
+                listener.obtainAppendListForAdapter(response.data)
+                    ?: listener.obtainListForAdapter(response.data, null, true)
+            }
+            mergeHeadItems(mergeParams, response.data, newItems, listener)
+        }
+        return true
+    }
+
+    /**
+     * 按key找到新数据与当前列表的重叠位置，只插入重叠之前的新增部分
+     */
+    private suspend fun mergeHeadItems(
+        params: Map<String, Any>,
+        data: T?,
+        newItems: List<Any>,
+        listener: OnProcessResponseSuspendListener<T>
+    ) {
+        val current = workingItems
+        val overlap = current?.let { findHeadOverlap(it, newItems) } ?: -1
+        if ((overlap < 0 && newItems.isNotEmpty()) || current == null) {
+            // 新数据与当前列表没有重叠，中间可能缺失数据，按普通刷新替换整个列表
+            clearPrefetch()
+            cancelRefetch()
+            cancelPreviousRequest()
+            requestJob?.cancel()
+            cancelRetry()
+            refreshPageIndex = params[KEY_PAGE] as? Int ?: firstPageIndex
+            _pagingState.update { it.copy(isRefresh = true, isLoading = true, error = null) }
+            handleSuccessResponse(data, listener)
+            _pagingState.update { it.copy(headMergeSerial = it.headMergeSerial + 1, headMergeCount = newItems.size) }
+            return
+        }
+        val merged: (PagingState) -> PagingState = {
+            it.copy(headMergeSerial = it.headMergeSerial + 1, headMergeCount = overlap.coerceAtLeast(0))
+        }
+        if (overlap <= 0) {
+            _pagingState.update(merged)
+            return
+        }
+        val delta = ArrayList(newItems.subList(0, overlap))
+        current.addAll(0, delta)
+        pageWindow?.shift(delta.size)
+        if (firstVisiblePosition >= 0) {
+            firstVisiblePosition += delta.size
+            lastVisiblePosition += delta.size
+        }
+        dispatchListChange(0, 0, delta, merged)
+    }
+
+    /**
+     * 查找新数据中第一个与当前列表开头重叠的位置：只在当前列表开头与新数据等量的范围内按key匹配，
+     * 不使用全局的key索引（上一次合并插入到开头后索引需要从头补齐），耗时与新数据的数量成正比
+     *
+     * @return 重叠的位置，没有重叠时返回-1
+     */
+    private fun findHeadOverlap(current: List<Any>, newItems: List<Any>): Int {
+        val keyProvider = itemKeyProvider ?: return -1
+        val headKeys = HashSet<Any>()
+        for (i in 0 until minOf(current.size, newItems.size)) {
+            keyProvider(current[i])?.let { headKeys.add(it) }
+        }
+        for (i in newItems.indices) {
+            val key = keyProvider(newItems[i]) ?: continue
+            if (key in headKeys) {
+                return i
+            }
+        }
+        return -1
+    }
+
+    /**
+     * 取消进行中的合并刷新
+     */
+    private fun cancelHeadMerge() {
+        if (headMergeJob?.isActive == true) {
+            headMergeJob?.cancel()
+            _pagingState.update { it.copy(headMergeSerial = it.headMergeSerial + 1, headMergeCount = -1) }
+        }
+        headMergeJob = null
+    }
+
+    /**
+     * 在列表开头插入上一页的数据
+     */
+    private fun prependPageItems(pageIndex: Int, pageItems: List<Any>) {
+        firstLoadedPageIndex = pageIndex
+        val headerState = previousHeaderState()
+        val loaded: (PagingState) -> PagingState = {
+            it.copy(isLoadingPrevious = false, headerState = headerState)
+        }
+        val current = workingItems
+        if (current != null) {
+            current.addAll(0, pageItems)
+            pageWindow?.prependPage(pageIndex, pageItems.size)
+            // 可见区域整体后移，等待下一次滑动时更新
+            if (firstVisiblePosition >= 0) {
+                firstVisiblePosition += pageItems.size
+                lastVisiblePosition += pageItems.size
+            }
+            dispatchListChange(0, 0, pageItems, loaded)
+            trimPageWindow()
+        } else {
+            pageWindow?.invalidate()
+            publishList(pageItems, loaded)
+        }
+    }
+
+    /**
+     * 根据已加载的最小页码计算头部状态
+     */
+    private fun previousHeaderState(): EntityUIEvent.EventType {
+        return if (firstLoadedPageIndex > firstPageIndex) {
+            EntityUIEvent.EventType.LOADING
+        } else {
+            EntityUIEvent.EventType.LOAD_FINISH
+        }
+    }
+
+    /**
+     * 取消加载上一页的请求
+     */
+    private fun cancelPreviousRequest() {
+        previousJob?.cancel()
+        previousJob = null
+        _pagingState.update { it.copy(isLoadingPrevious = false) }
+    }
+
+    /**
+     * 加载更多时优先使用预取的数据
+     * @param pageKey 请求的页码，不是下一页时不使用预取的数据
+     * @return true表示已由预取数据处理，无需再发起请求
+     */
+    private fun commitPrefetchedPage(pageKey: Any?, listener: OnProcessResponseSuspendListener<T>): Boolean {
+        val nextPageIndex = currentPageIndex + 1
+        if (pageKey != nextPageIndex) {
+            clearPrefetch()
+            return false
+        }
+        val prefetchedPage = prefetchBuffer.firstOrNull()
+        if (prefetchedPage != null && prefetchedPage.pageIndex == nextPageIndex) {
+            prefetchBuffer.removeFirst()
+            requestJob?.cancel()
+            _pagingState.update { it.copy(isRefresh = false, isLoading = true, error = null) }
+            inFlightKey = nextPageIndex
+            launchSuccessResponse(prefetchedPage.data, listener)
+            return true
+        }
+        if (prefetchJob?.isActive == true && prefetchingPageIndex == nextPageIndex) {
+            // 下一页正在预取，等待返回后直接提交，不重复请求
+            requestJob?.cancel()
+            _pagingState.update { it.copy(isRefresh = false, isLoading = true, error = null) }
+            inFlightKey = nextPageIndex
+            commitPrefetchOnArrival = true
+            return true
+        }
+        // 暂存区与当前页码对不上，丢弃后走正常请求
+        clearPrefetch()
+        return false
+    }
+
+    /**
+     * 在后台处理已经返回的数据并提交到列表，处理期间视为加载中
+     */
+    private fun launchSuccessResponse(data: T?, listener: OnProcessResponseSuspendListener<T>) {
+        requestJob = viewModelScope.launch {
+            try {
+                handleSuccessResponse(data, listener)
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                handleException(NetworkException.UnknownException(e.message ?: "Error", e))
+            }
+        }
+    }
+
+    /**
+     * 预取下一页数据到暂存区，暂存区满或者已经到最后一页时停止
+     */
+    private fun schedulePrefetch() {
+        val requestData = lastRequestData ?: return
+        val listener = lastListener ?: return
+        if (prefetchDepth <= 0 || prefetchReachedEnd || prefetchJob?.isActive == true) {
+            return
+        }
+        if (prefetchBuffer.size >= prefetchDepth) {
+            return
+        }
+        val pageIndex = (prefetchBuffer.lastOrNull()?.pageIndex ?: currentPageIndex) + 1
+        val params = HashMap(lastParams).apply {
+            put(KEY_PAGE, pageIndex)
+        }
+        prefetchingPageIndex = pageIndex
+        prefetchJob = viewModelScope.launch {
+            var isFinished = false
+            val response = try {
+                requestData(params)
+                    .flowOn(Dispatchers.IO)
+                    .first { it !is ApiResponse.Loading }
+                    .also {
+                        if (it is ApiResponse.Success) {
+                            isFinished = withContext(processDispatcher) {
+                                listener.isLoadMoreFinished(it.data)
+                            }
+                        }
+                    }
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                ApiResponse.Error(e)
+            }
+            prefetchingPageIndex = -1
+            prefetchJob = null
+            onPrefetchResponse(pageIndex, params, response, isFinished)
+        }
+    }
+
+    /**
+     * 处理预取结果
+     */
+    private fun onPrefetchResponse(
+        pageIndex: Int,
+        params: Map<String, Any>,
+        response: ApiResponse<T>,
+        isFinished: Boolean
+    ) {
+        val listener = lastListener ?: return
+        val waiting = commitPrefetchOnArrival
+        commitPrefetchOnArrival = false
+        if (response is ApiResponse.Success) {
+            if (waiting) {
+                launchSuccessResponse(response.data, listener)
+            } else {
+                prefetchBuffer.addLast(PrefetchedPage(pageIndex, response.data))
+                if (isFinished) {
+                    prefetchReachedEnd = true
+                }
+                schedulePrefetch()
+            }
+        } else if (waiting) {
+            // 预取失败且加载更多正在等待，改为正常请求，由其处理失败状态
+            val requestData = lastRequestData ?: return
+            launchRequest(params, requestData, false, listener)
+        } else if (debug) {
+            println("LoadMoreListFragmentViewModel: prefetch page $pageIndex failed")
+        }
+    }
+
+    /**
+     * 清空预取状态
+     */
+    private fun clearPrefetch() {
+        prefetchJob?.cancel()
+        prefetchJob = null
+        prefetchingPageIndex = -1
+        commitPrefetchOnArrival = false
+        prefetchReachedEnd = false
+        prefetchBuffer.clear()
+    }
     
     /**
      * 处理API响应
      */
-    private fun handleApiResponse(
+    private suspend fun handleApiResponse(
         response: ApiResponse<T>,
-        listener: OnProcessResponseListener<T>
+        listener: OnProcessResponseSuspendListener<T>
     ) {
         when (response) {
             is ApiResponse.Loading -> {
@@ -120,64 +823,589 @@ class LoadMoreListFragmentViewModel<T> : ViewModel() {
     }
     
     /**
-     * 处理成功响应
+     * 处理成功响应，数据在后台转换完成后，列表、页码和加载状态在同一次状态更新中完成
      */
-    private fun handleSuccessResponse(
+    private suspend fun handleSuccessResponse(
         data: T?,
-        listener: OnProcessResponseListener<T>
+        listener: OnProcessResponseSuspendListener<T>
     ) {
-        isLoading = false
-        isNetworkError = false
-        
+        val page = processPage(data, listener, _pagingState.value.isRefresh)
+        retryAttempt = 0
+        val state = _pagingState.value
+        val isRefresh = state.isRefresh
+        var headerState = state.headerState
+
         // 更新页码
-        if (isRefresh) {
-            currentPageIndex = 1
+        val pageIndex = if (isRefresh) {
+            cacheRestoreJob?.cancel()
+            isShowingCachedPage = false
+            savePageCache(data)
+            firstLoadedPageIndex = refreshPageIndex
+            if (loadPreviousEnabled) {
+                headerState = previousHeaderState()
+            }
+            loadedResponses.clear()
+            refreshPageIndex
         } else {
-            currentPageIndex += 1
+            inFlightKey as? Int ?: (state.currentPageIndex + 1)
         }
-        
+        recordPageResponse(pageIndex, data)
+
         // 检查数据是否为空且是刷新请求
-        if (listener.isRequestSuccessButDataEmpty(data) && isRefresh) {
-            listLiveData.value = arrayListOf()
-            if (listener.isLoadMoreFinished(data)) {
-                eventLiveData.value = EntityUIEvent(EntityUIEvent.EventType.LOAD_FINISH)
+        if (page.isEmpty) {
+            val footerState = if (page.isFinished) EntityUIEvent.EventType.LOAD_FINISH else state.footerState
+            pageWindow?.invalidate()
+            publishList(arrayListOf()) {
+                it.copy(
+                    isLoading = false,
+                    error = null,
+                    currentPageIndex = pageIndex,
+                    footerState = footerState,
+                    headerState = headerState
+                )
             }
+            return
+        }
+
+        // 检查是否加载完成
+        val footerState = if (page.isFinished) {
+            EntityUIEvent.EventType.LOAD_FINISH
         } else {
-            // 更新列表数据
-            listLiveData.value = listener.obtainListForAdapter(
-                data,
-                listLiveData.value,
-                isRefresh
+            EntityUIEvent.EventType.LOADING
+        }
+        val loaded: (PagingState) -> PagingState = {
+            it.copy(
+                isLoading = false,
+                error = null,
+                currentPageIndex = pageIndex,
+                footerState = footerState,
+                headerState = headerState
             )
-            
-            // 检查是否加载完成
-            if (listener.isLoadMoreFinished(data)) {
-                eventLiveData.value = EntityUIEvent(EntityUIEvent.EventType.LOAD_FINISH)
-            } else {
-                eventLiveData.value = EntityUIEvent(EntityUIEvent.EventType.LOADING)
+        }
+        if (page.isAppend) {
+            appendPageItems(pageIndex, page.items, loaded)
+        } else if (appendMode && isRefresh) {
+            // 追加模式下刷新后记录分页边界，后续加载更多直接在列表尾部追加
+            pageWindow?.reset(pageIndex, page.items.size)
+            publishList(page.items, loaded)
+        } else {
+            pageWindow?.invalidate()
+            publishList(page.items, loaded)
+        }
+        if (!page.isFinished) {
+            schedulePrefetch()
+        }
+    }
+
+    /**
+     * 在后台调度器上把接口数据转换为列表数据，主线程只负责提交结果
+     */
+    private suspend fun processPage(
+        data: T?,
+        listener: OnProcessResponseSuspendListener<T>,
+        isRefresh: Boolean
+    ): ProcessedPage {
+        if (appendMode && !isRefresh) {
+            val page = withContext(processDispatcher) {
+                listener.obtainAppendListForAdapter(data)?.let {
+                    ProcessedPage(listener.isLoadMoreFinished(data), false, it, true)
+                }
+            }
+            if (page != null) {
+                return page
             }
         }
+        var attempt = 0
+        while (true) {
+            val version = listVersion
+            // 状态中的列表是只读快照，可以直接交给后台，窗口模式的占位数据不交给业务代码
+            val currentItems = _pagingState.value.items.let { items ->
+                if (items != null && pageWindow != null) {
+                    items.filterNot { it is PagePlaceholderViewBinder.PagePlaceholderItem }
+                } else {
+                    items
+                }
+            }
+            // 多次被列表变化打断后不再切换线程，直接在主线程处理，处理期间列表不会再变化
+            val isLastAttempt = attempt >= MAX_PROCESS_RETRIES
+            val page = withContext(if (isLastAttempt) EmptyCoroutineContext else processDispatcher) {
+                val isFinished = listener.isLoadMoreFinished(data)
+                if (isRefresh && listener.isRequestSuccessButDataEmpty(data)) {
+                    ProcessedPage(isFinished, true, emptyList(), false)
+                } else {
+                    ProcessedPage(isFinished, false, listener.obtainListForAdapter(data, currentItems, isRefresh), false)
+                }
+            }
+            // 处理期间列表发生了变化（例如插入了上一页），加载更多需要基于最新列表重新处理
+            if (isRefresh || isLastAttempt || version == listVersion) {
+                return page
+            }
+            attempt++
+        }
     }
     
+    /**
+     * 追加本页数据：在当前列表尾部追加并只下发增量，耗时与本页数量成正比
+     */
+    private fun appendPageItems(
+        pageIndex: Int,
+        pageItems: List<Any>,
+        transform: (PagingState) -> PagingState
+    ) {
+        val current = workingItems
+        if (current != null) {
+            val startIndex = current.size
+            current.addAll(pageItems)
+            pageWindow?.addPage(pageIndex, startIndex, pageItems.size)
+            dispatchListChange(startIndex, 0, pageItems, transform)
+            trimPageWindow()
+        } else {
+            // 还没有列表（例如刷新失败后加载更多），整体下发一次
+            pageWindow?.invalidate()
+            publishList(pageItems, transform)
+        }
+    }
+
+    /**
+     * 生成内部列表的只读快照，只复制块的引用，之后的原地修改只复制被修改的块，不会影响已经下发的状态
+     */
+    private fun snapshotItems(): List<Any>? {
+        return workingItems?.snapshot()
+    }
+
+    /**
+     * 整体下发列表，列表会被复制，调用方之后修改list不影响ViewModel
+     * @param transform 与列表一起更新的其他状态
+     */
+    private fun publishList(
+        list: List<Any>?,
+        transform: (PagingState) -> PagingState = { it }
+    ) {
+        itemKeyIndex?.reset()
+        workingItems = list?.let { ChunkedItemList(it) }
+        val items = snapshotItems()
+        _pagingState.update {
+            val version = it.listVersion + 1
+            transform(it).copy(
+                items = items,
+                listVersion = version,
+                publishedVersion = version,
+                recentChanges = emptyList()
+            )
+        }
+    }
+
+    /**
+     * 下发原地修改后的局部变化
+     * @param transform 与列表变化一起更新的其他状态
+     */
+    private fun dispatchListChange(
+        startIndex: Int,
+        removeCount: Int,
+        items: List<Any>,
+        transform: (PagingState) -> PagingState = { it }
+    ) {
+        itemKeyIndex?.onChanged(startIndex, removeCount, items)
+        val snapshot = snapshotItems()
+        _pagingState.update {
+            val version = it.listVersion + 1
+            val change = ListChangeEvent(version, startIndex, removeCount, items)
+            transform(it).copy(
+                items = snapshot,
+                listVersion = version,
+                recentChanges = (it.recentChanges + change).takeLast(MAX_RECENT_CHANGES)
+            )
+        }
+    }
+
+    /**
+     * 批量修改列表，修改合并为尽量少的区间变化后一次性下发，ViewModel和适配器中的列表保持一致，
+     * 改变数量的修改会打乱分页边界，窗口模式暂停直到下一次刷新
+     *
+     * @param block 在主线程同步执行的修改
+     */
+    fun mutateItems(block: ListMutation.() -> Unit) {
+        val current = workingItems
+        val list: MutableList<Any> = current ?: ArrayList()
+        val mutation = ListMutation(list)
+        mutation.block()
+        if (mutation.hasStructuralChange) {
+            pageWindow?.invalidate()
+            cancelRefetch()
+        }
+        val operations = mutation.operations
+        if (operations.isEmpty()) {
+            return
+        }
+        if (list !== current || operations.size > MAX_BATCH_CHANGES) {
+            publishList(list)
+            return
+        }
+        dispatchListChanges(operations)
+    }
+
+    /**
+     * 一次性下发多个局部变化，只生成一次快照
+     * @param operations 按顺序应用的区间变化
+     * @param transform 与列表变化一起更新的其他状态
+     */
+    private fun dispatchListChanges(
+        operations: List<ListMutation.Operation>,
+        transform: (PagingState) -> PagingState = { it }
+    ) {
+        operations.forEach { itemKeyIndex?.onChanged(it.start, it.removeCount, it.items) }
+        val snapshot = snapshotItems()
+        _pagingState.update {
+            val changes = operations.mapIndexed { index, operation ->
+                ListChangeEvent(
+                    it.listVersion + index + 1,
+                    operation.start,
+                    operation.removeCount,
+                    operation.items,
+                    operation.payload
+                )
+            }
+            transform(it).copy(
+                items = snapshot,
+                listVersion = it.listVersion + changes.size,
+                // 同一批的变化全部保留，保证UI层能够完整应用
+                recentChanges = (it.recentChanges + changes).takeLast(maxOf(MAX_RECENT_CHANGES, changes.size))
+            )
+        }
+    }
+
+    /**
+     * 按key查找数据位置，索引随列表变化增量维护，不需要每次遍历列表
+     *
+     * @param key item的key，不同类型的key相同时返回其中之一
+     * @return 数据位置，没有找到或者没有设置itemKeyProvider时返回-1
+     */
+    fun indexOfKey(key: Any): Int {
+        val items = workingItems ?: return -1
+        return itemKeyIndex?.indexOf(items, key) ?: -1
+    }
+
+    /**
+     * 记录第一个可见item的位置，保存快照时使用
+     *
+     * @param position 数据位置，不包含头部加载上一页的item
+     * @param offset 距离列表顶部的偏移
+     */
+    fun updateScrollAnchor(position: Int, offset: Int) {
+        anchorPosition = position
+        anchorOffset = offset
+    }
+
+    /**
+     * 需要保存接口数据时记录已加载的页
+     */
+    private fun recordPageResponse(pageIndex: Int, data: T?) {
+        if (savedStateEnabled && savedStateByteBudget > 0 && pageCacheType != null && data != null) {
+            loadedResponses[pageIndex] = data
+        }
+    }
+
+    /**
+     * 生成分页快照，在保存实例状态时调用
+     * 包含页码游标、第一个可见item所在的页、key和偏移，起始页接口数据不超过字节上限时一起保存
+     */
+    private fun buildSnapshot(): Bundle {
+        val items = _pagingState.value.items
+        if (!savedStateEnabled || items.isNullOrEmpty()) {
+            return Bundle()
+        }
+        val position = anchorPosition.coerceIn(0, items.size - 1)
+        val pageSize = lastParams[KEY_PAGE_SIZE] as? Int ?: 0
+        // 优先使用分页窗口记录的边界，否则按分页大小估算
+        val slot = pageWindow?.pageAt(position)
+        val anchorPage = when {
+            slot != null -> slot.pageIndex
+            pageSize > 0 -> firstLoadedPageIndex + position / pageSize
+            else -> firstLoadedPageIndex
+        }
+        val anchorPageStart = slot?.start ?: ((anchorPage - firstLoadedPageIndex) * pageSize)
+        val snapshot = bundleOf(
+            KEY_SNAPSHOT_FIRST_PAGE to firstLoadedPageIndex,
+            KEY_SNAPSHOT_ANCHOR_PAGE to anchorPage,
+            KEY_SNAPSHOT_POSITION_IN_PAGE to (position - anchorPageStart).coerceAtLeast(0),
+            KEY_SNAPSHOT_OFFSET to anchorOffset
+        )
+        // 只保存可以放入Bundle的key
+        when (val key = itemKeyProvider?.invoke(items[position])) {
+            is String -> snapshot.putString(KEY_SNAPSHOT_ANCHOR_KEY, key)
+            is Int -> snapshot.putInt(KEY_SNAPSHOT_ANCHOR_KEY, key)
+            is Long -> snapshot.putLong(KEY_SNAPSHOT_ANCHOR_KEY, key)
+        }
+        val data = loadedResponses[anchorPage]
+        val type = pageCacheType
+        if (data != null && type != null) {
+            val json = Gson().toJson(data, type)
+            // Parcel中字符串按UTF-16写入
+            if (json.length * 2 <= savedStateByteBudget) {
+                snapshot.putString(KEY_SNAPSHOT_PAGE_DATA, json)
+            }
+        }
+        return snapshot
+    }
+
+    /**
+     * 读取进程被回收前保存的分页快照，只能读取一次
+     * 支持加载上一页或第一个可见item在起始页时，从第一个可见item所在的页开始恢复到原来的位置；
+     * 否则从该页开始的列表无法加载前面的页，改为从原来的起始页开始恢复并回到顶部
+     *
+     * @return 快照，没有快照、没有开启或者列表已经有数据时返回null
+     */
+    @Suppress("DEPRECATION")
+    fun takeRestoredSnapshot(): PagingSnapshot<T>? {
+        val snapshot = restoredSnapshot ?: return null
+        restoredSnapshot = null
+        if (!savedStateEnabled || _pagingState.value.items != null || !snapshot.containsKey(KEY_SNAPSHOT_ANCHOR_PAGE)) {
+            return null
+        }
+        val firstPage = snapshot.getInt(KEY_SNAPSHOT_FIRST_PAGE)
+        val anchorPage = snapshot.getInt(KEY_SNAPSHOT_ANCHOR_PAGE)
+        if (!loadPreviousEnabled && anchorPage != firstPage) {
+            // 只请求起始页时第一个可见item不在列表中，按位置恢复会落到起始页的错误位置
+            return PagingSnapshot(firstPage, null, 0, 0, null)
+        }
+        val type = pageCacheType
+        val json = snapshot.getString(KEY_SNAPSHOT_PAGE_DATA)
+        val pageData: T? = if (json != null && type != null) {
+            try {
+                Gson().fromJson<T>(json, type)
+            } catch (e: Exception) {
+                null
+            }
+        } else {
+            null
+        }
+        return PagingSnapshot(
+            anchorPage,
+            snapshot.get(KEY_SNAPSHOT_ANCHOR_KEY),
+            snapshot.getInt(KEY_SNAPSHOT_POSITION_IN_PAGE),
+            snapshot.getInt(KEY_SNAPSHOT_OFFSET),
+            pageData
+        )
+    }
+
+    /**
+     * 用快照中保存的接口数据作为刷新结果，不发起网络请求，之后的加载更多正常请求
+     *
+     * @param params 请求接口的参数map，页码为快照的起始页
+     * @param data 快照中保存的接口数据
+     */
+    fun submitRestoredPage(
+        params: Map<String, Any>,
+        data: T,
+        requestData: (Map<String, Any>) -> Flow<ApiResponse<T>>,
+        listener: OnProcessResponseSuspendListener<T>
+    ) {
+        lastParams = HashMap(params)
+        bindRequest(requestData, listener)
+        refreshPageIndex = params[KEY_PAGE] as? Int ?: firstPageIndex
+        _pagingState.update { it.copy(isRefresh = true, isLoading = true, error = null) }
+        launchSuccessResponse(data, listener)
+    }
+
+    /**
+     * 外部整体替换列表数据，替换后无法得知分页边界，窗口模式暂停直到下一次刷新
+     */
+    fun updateItems(items: List<Any>?) {
+        pageWindow?.invalidate()
+        cancelRefetch()
+        publishList(items)
+    }
+
+    /**
+     * 可见区域变化，窗口模式下据此决定淘汰哪些页，并重新加载滑回可见区域附近的已淘汰页
+     * @param first 第一个可见位置
+     * @param last 最后一个可见位置
+     */
+    fun onVisibleRangeChanged(first: Int, last: Int) {
+        firstVisiblePosition = first
+        lastVisiblePosition = last
+        val window = pageWindow ?: return
+        // 提前一屏开始重新加载
+        val margin = (last - first + 1).coerceAtLeast(1)
+        for (slot in window.findEvictedNear(first, last, margin)) {
+            refetchPage(slot)
+        }
+    }
+
+    /**
+     * 常驻页数超出上限时，把离可见区域最远的页替换为占位数据，数量不变，列表位置保持稳定
+     */
+    private fun trimPageWindow() {
+        val window = pageWindow ?: return
+        val current = workingItems ?: return
+        val evictions = window.pickEvictions(firstVisiblePosition, lastVisiblePosition)
+        if (evictions.isEmpty()) {
+            return
+        }
+        // 淘汰数量不变，各页位置互不影响，所有淘汰合并为一次下发
+        val operations = evictions.map { slot ->
+            val placeholders = ArrayList<Any>(slot.count)
+            for (i in 0 until slot.count) {
+                placeholders.add(PagePlaceholderViewBinder.PagePlaceholderItem(slot.pageIndex, i))
+                current[slot.start + i] = placeholders[i]
+            }
+            slot.isEvicted = true
+            loadedResponses.remove(slot.pageIndex)
+            if (debug) {
+                println("LoadMoreListFragmentViewModel: evict page ${slot.pageIndex}")
+            }
+            ListMutation.Operation(slot.start, slot.count, placeholders)
+        }
+        dispatchListChanges(operations)
+    }
+
+    /**
+     * 重新加载已淘汰的页
+     */
+    private fun refetchPage(slot: PageWindow.PageSlot) {
+        val requestData = lastRequestData ?: return
+        val listener = lastListener ?: return
+        if (refetchJobs.containsKey(slot.pageIndex)) {
+            return
+        }
+        val params = HashMap(lastParams).apply {
+            put(KEY_PAGE, slot.pageIndex)
+        }
+        val job = viewModelScope.launch(start = CoroutineStart.LAZY) {
+            val response = try {
+                requestData(params)
+                    .flowOn(Dispatchers.IO)
+                    .first { it !is ApiResponse.Loading }
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                ApiResponse.Error(e)
+            }
+            refetchJobs.remove(slot.pageIndex)
+            if (response is ApiResponse.Success) {
+                val items = withContext(processDispatcher) {
+                    listener.obtainAppendListForAdapter(response.data)
+                }
+                items?.let {
+                    recordPageResponse(slot.pageIndex, response.data)
+                    restorePage(slot, it)
+                }
+            } else if (debug) {
+                println("LoadMoreListFragmentViewModel: refetch page ${slot.pageIndex} failed")
+            }
+        }
+        refetchJobs[slot.pageIndex] = job
+        job.start()
+    }
+
+    /**
+     * 用重新加载的数据替换占位数据
+     */
+    private fun restorePage(slot: PageWindow.PageSlot, items: List<Any>) {
+        val window = pageWindow ?: return
+        val current = workingItems ?: return
+        if (!slot.isEvicted || !window.contains(slot)) {
+            return
+        }
+        val oldCount = slot.count
+        if (items.size == oldCount) {
+            for (i in items.indices) {
+                current[slot.start + i] = items[i]
+            }
+        } else {
+            // 数据数量有变化，只能整体替换该区间
+            current.subList(slot.start, slot.end).clear()
+            current.addAll(slot.start, items)
+        }
+        window.onPageRestored(slot, items.size)
+        dispatchListChange(slot.start, oldCount, items)
+        trimPageWindow()
+    }
+
+    /**
+     * 取消所有重新加载中的分页
+     */
+    private fun cancelRefetch() {
+        refetchJobs.values.forEach { it.cancel() }
+        refetchJobs.clear()
+    }
+
     /**
      * 处理异常
      */
     private fun handleException(exception: Exception) {
-        isLoading = false
-        isNetworkError = true
-        
         if (debug) {
             println("LoadMoreListFragmentViewModel Error: ${exception.message}")
             exception.printStackTrace()
         }
-        
-        if (isRefresh) {
-            // 刷新失败，清空列表
-            listLiveData.value = null
-        } else {
+
+        val failed: (PagingState) -> PagingState = {
+            it.copy(isLoading = false, error = exception)
+        }
+        val state = _pagingState.value
+        if (state.isRefresh) {
+            if (isShowingCachedPage) {
+                // 已展示缓存数据时保留缓存内容，重新下发以结束刷新状态
+                publishList(state.items, failed)
+            } else {
+                // 刷新失败，清空列表
+                pageWindow?.invalidate()
+                publishList(null, failed)
+            }
+        } else if (!scheduleRetry(exception)) {
             // 加载更多失败
-            eventLiveData.value = EntityUIEvent(EntityUIEvent.EventType.LOAD_MORE_FAILED)
+            _pagingState.update {
+                failed(it).copy(footerState = EntityUIEvent.EventType.LOAD_MORE_FAILED)
+            }
+        }
+    }
+
+    /**
+     * 加载更多失败后按指数退避自动重试，等待期间底部保持加载中
+     * 断网时的失败不消耗重试次数，等网络恢复后再重试
+     * @return true表示已安排重试
+     */
+    private fun scheduleRetry(exception: Exception): Boolean {
+        val requestData = lastRequestData ?: return false
+        val listener = lastListener ?: return false
+        if (retryAttempt >= autoRetryCount || !NetworkExceptionHandler.isRetryable(exception)) {
+            return false
+        }
+        val isOffline = connectivityObserver?.isOnline?.value == false
+        val delayMillis = computeRetryDelay(if (isOffline) 0 else retryAttempt)
+        if (!isOffline) {
+            retryAttempt++
+        }
+        val params = inFlightParams
+        _pagingState.update {
+            it.copy(isLoading = true, error = exception, footerState = EntityUIEvent.EventType.LOADING)
         }
+        if (debug) {
+            println("LoadMoreListFragmentViewModel: retry page ${params[KEY_PAGE]} in ${delayMillis}ms, attempt $retryAttempt")
+        }
+        retryJob = viewModelScope.launch {
+            // 断网时暂停，网络恢复后再开始计时
+            connectivityObserver?.isOnline?.first { it }
+            delay(delayMillis)
+            retryJob = null
+            launchRequest(params, requestData, false, listener)
+        }
+        return true
+    }
+
+    /**
+     * 计算第attempt次重试的间隔
+     */
+    private fun computeRetryDelay(attempt: Int): Long {
+        return RetryBackoff.delayMillis(attempt, autoRetryBaseDelayMillis, autoRetryMaxDelayMillis)
+    }
+
+    /**
+     * 取消等待中的自动重试
+     */
+    private fun cancelRetry() {
+        retryJob?.cancel()
+        retryJob = null
     }
 
     /**
@@ -193,7 +1421,24 @@ class LoadMoreListFragmentViewModel<T> : ViewModel() {
     fun cancelRequest() {
         requestJob?.cancel()
         requestJob = null
-        isLoading = false
+        if (retryJob != null) {
+            // 等待中的自动重试被取消，底部改为失败状态，由用户点击重试
+            cancelRetry()
+            _pagingState.update { it.copy(footerState = EntityUIEvent.EventType.LOAD_MORE_FAILED) }
+        }
+        cacheRestoreJob?.cancel()
+        cacheRestoreJob = null
+        cancelRefetch()
+        cancelPreviousRequest()
+        cancelHeadMerge()
+        // 暂存区保留，视图重建后可以继续使用
+        prefetchJob?.cancel()
+        prefetchJob = null
+        prefetchingPageIndex = -1
+        commitPrefetchOnArrival = false
+        lastRequestData = null
+        lastListener = null
+        _pagingState.update { it.copy(isLoading = false) }
     }
     
     /**
@@ -207,11 +1452,63 @@ class LoadMoreListFragmentViewModel<T> : ViewModel() {
      * 重置网络错误状态
      */
     fun resetNetworkErrorStatus() {
-        isNetworkError = false
+        _pagingState.update { it.copy(error = null) }
     }
     
     override fun onCleared() {
         super.onCleared()
         cancelRequest()
+        prefetchBuffer.clear()
+    }
+
+    /**
+     * 在后台处理完成的一页数据
+     * @param isFinished 是否已经加载完成
+     * @param isEmpty 刷新成功但数据为空
+     * @param items 追加模式下为本页数据，否则为完整列表
+     * @param isAppend items是否为本页数据
+     */
+    private class ProcessedPage(
+        val isFinished: Boolean,
+        val isEmpty: Boolean,
+        val items: List<Any>,
+        val isAppend: Boolean
+    )
+
+    /**
+     * 预取并暂存的一页数据
+     */
+    private class PrefetchedPage<T>(val pageIndex: Int, val data: T)
+
+    companion object {
+        // 请求参数中的页码key
+        const val KEY_PAGE = "page"
+
+        // 请求参数中的分页大小key
+        const val KEY_PAGE_SIZE = "pageSize"
+
+        // 合并刷新时请求参数中当前第一项的key，接口据此只返回更新的数据
+        const val KEY_TOP_KEY = "topKey"
+
+        // SavedStateHandle中保存分页快照的key
+        private const val KEY_SAVED_SNAPSHOT = "paging_snapshot"
+        private const val KEY_SNAPSHOT_FIRST_PAGE = "first_page"
+        private const val KEY_SNAPSHOT_ANCHOR_PAGE = "anchor_page"
+        private const val KEY_SNAPSHOT_POSITION_IN_PAGE = "position_in_page"
+        private const val KEY_SNAPSHOT_OFFSET = "offset"
+        private const val KEY_SNAPSHOT_ANCHOR_KEY = "anchor_key"
+        private const val KEY_SNAPSHOT_PAGE_DATA = "page_data"
+
+        // 计算分页请求耗时p90的样本数
+        private const val LATENCY_SAMPLE_SIZE = 20
+
+        // 状态中保留的局部变化数量，UI层一帧内漏掉更多变化时整体渲染
+        private const val MAX_RECENT_CHANGES = 16
+
+        // 一次批量修改最多下发的区间变化数量，超出时整体下发列表
+        private const val MAX_BATCH_CHANGES = 64
+
+        // 加载更多的数据在后台处理期间被列表变化打断后重新处理的次数上限，超出后在主线程处理
+        private const val MAX_PROCESS_RETRIES = 2
     }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.github.pageloadlib.viewmodel
+
+/**
+ * 记录最近若干次分页请求的耗时，用于估算下一页需要提前多久开始加载
+ */
+internal class PageLatencyTracker(private val sampleSize: Int) {
+
+    // 环形缓冲区，保存最近sampleSize次的耗时
+    private val samples = LongArray(sampleSize)
+    private var count = 0
+    private var next = 0
+
+    /**
+     * 最近耗时的p90，没有样本时为0，记录时计算，滑动过程中可以频繁读取
+     */
+    var p90Millis: Long = 0
+        private set
+
+    /**
+     * 记录一次请求耗时
+     * @param millis 从发起请求到数据提交的耗时
+     */
+    fun record(millis: Long) {
+        samples[next] = millis
+        next = (next + 1) % sampleSize
+        if (count < sampleSize) {
+            count++
+        }
+        val sorted = samples.copyOf(count)
+        sorted.sort()
+        p90Millis = sorted[((count * 9 + 9) / 10 - 1).coerceIn(0, count - 1)]
+    }
+}
@@ -0,0 +1,145 @@
+package com.github.pageloadlib.viewmodel
+
+/**
+ * 分页窗口：记录每一页数据在列表中的区间，用于限制常驻内存的页数
+ * 只有在知道每一页边界的情况下（追加模式）才会记录
+ */
+internal class PageWindow(var maxResidentPages: Int) {
+
+    /**
+     * 一页数据在列表中的区间
+     */
+    class PageSlot(val pageIndex: Int, var start: Int, var count: Int) {
+        // 是否已被淘汰为占位数据
+        var isEvicted = false
+
+        val end: Int
+            get() = start + count
+
+        /**
+         * 与[first, last]区间的距离，相交时为0
+         */
+        fun distanceTo(first: Int, last: Int): Int {
+            return when {
+                end <= first -> first - end + 1
+                start > last -> start - last
+                else -> 0
+            }
+        }
+    }
+
+    private val slots = ArrayList<PageSlot>()
+
+    // 是否知道每一页的边界
+    private var isTracking = false
+
+    /**
+     * 刷新后重新开始记录
+     */
+    fun reset(pageIndex: Int, count: Int) {
+        slots.clear()
+        slots.add(PageSlot(pageIndex, 0, count))
+        isTracking = true
+    }
+
+    /**
+     * 列表被整体替换且无法得知分页边界时停止记录，直到下一次刷新
+     */
+    fun invalidate() {
+        slots.clear()
+        isTracking = false
+    }
+
+    fun addPage(pageIndex: Int, start: Int, count: Int) {
+        if (isTracking) {
+            slots.add(PageSlot(pageIndex, start, count))
+        }
+    }
+
+    /**
+     * 在列表开头插入一页，后面各页的区间顺延
+     */
+    fun prependPage(pageIndex: Int, count: Int) {
+        if (!isTracking) {
+            return
+        }
+        for (slot in slots) {
+            slot.start += count
+        }
+        slots.add(0, PageSlot(pageIndex, 0, count))
+    }
+
+    /**
+     * 查找数据位置所在的页，不知道分页边界时返回null
+     */
+    fun pageAt(position: Int): PageSlot? {
+        if (!isTracking) {
+            return null
+        }
+        return slots.firstOrNull { position >= it.start && position < it.end }
+    }
+
+    /**
+     * 在列表开头插入了不属于任何页的数据（例如合并刷新的新数据），各页的区间整体顺延
+     */
+    fun shift(count: Int) {
+        if (!isTracking) {
+            return
+        }
+        for (slot in slots) {
+            slot.start += count
+        }
+    }
+
+    fun contains(slot: PageSlot): Boolean {
+        return slots.contains(slot)
+    }
+
+    /**
+     * 选出需要淘汰的页：常驻页数超出上限时，淘汰离可见区域最远且不可见的页
+     * @param firstVisible 第一个可见位置，未知时传-1
+     * @param lastVisible 最后一个可见位置，未知时传-1
+     */
+    fun pickEvictions(firstVisible: Int, lastVisible: Int): List<PageSlot> {
+        val resident = slots.filter { !it.isEvicted }
+        val overflow = resident.size - maxResidentPages
+        if (!isTracking || maxResidentPages <= 0 || overflow <= 0) {
+            return emptyList()
+        }
+        // 可见区域未知时认为停留在列表末尾
+        val first = if (firstVisible < 0) slots.last().end else firstVisible
+        val last = if (lastVisible < 0) slots.last().end else lastVisible
+        return resident
+            .filter { it.distanceTo(first, last) > 0 }
+            .sortedByDescending { it.distanceTo(first, last) }
+            .take(overflow)
+    }
+
+    /**
+     * 查找可见区域附近已被淘汰的页
+     * @param margin 可见区域前后额外的距离
+     */
+    fun findEvictedNear(firstVisible: Int, lastVisible: Int, margin: Int): List<PageSlot> {
+        if (firstVisible < 0 || lastVisible < 0) {
+            return emptyList()
+        }
+        return slots.filter {
+            it.isEvicted && it.distanceTo(firstVisible - margin, lastVisible + margin) == 0
+        }
+    }
+
+    /**
+     * 淘汰的页重新加载完成，数量变化时顺延后面各页的区间
+     */
+    fun onPageRestored(slot: PageSlot, newCount: Int) {
+        val delta = newCount - slot.count
+        slot.count = newCount
+        slot.isEvicted = false
+        if (delta != 0) {
+            val index = slots.indexOf(slot)
+            for (i in index + 1 until slots.size) {
+                slots[i].start += delta
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.pageloadlib.viewmodel
+
+/**
+ * 进程被回收后恢复列表用的分页快照
+ *
+ * @param startPageIndex 恢复时开始请求的页码
+ * @param anchorKey 第一个可见item的key，为null时按位置恢复
+ * @param anchorPosition 第一个可见item相对于起始页的数据位置
+ * @param anchorOffset 第一个可见item距离列表顶部的偏移
+ * @param pageData 保存的起始页接口数据，不为null时不需要重新请求
+ */
+class PagingSnapshot<T>(
+    val startPageIndex: Int,
+    val anchorKey: Any?,
+    val anchorPosition: Int,
+    val anchorOffset: Int,
+    val pageData: T?
+)
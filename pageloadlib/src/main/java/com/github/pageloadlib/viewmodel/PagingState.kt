@@ -0,0 +1,45 @@
+package com.github.pageloadlib.viewmodel
+
+import com.github.pageloadlib.event.EntityUIEvent
+import com.github.pageloadlib.event.ListChangeEvent
+
+/**
+ * 分页列表的完整UI状态，不可变，每次变化都整体替换为新的对象，UI层只需要渲染最新的状态
+ * listVersion放在第一位，列表变化时版本一定不同，equals不需要逐项比较列表
+ *
+ * @param listVersion 列表版本，列表被替换或局部修改时递增
+ * @param items 列表数据的只读快照，之后的修改不会影响已经下发的状态，为null表示刷新失败或者还没有加载
+ * @param publishedVersion 最近一次整体下发列表时的版本，0表示还没有下发过
+ * @param recentChanges 最近一次整体下发之后的局部变化，按版本升序，只保留最近的若干个
+ * @param footerState 底部加载更多的状态，为null表示保持不变
+ * @param headerState 头部加载上一页的状态，为null表示保持不变
+ * @param isRefresh 当前是否为刷新请求
+ * @param isLoading 当前是否正在加载
+ * @param isLoadingPrevious 当前是否正在加载上一页
+ * @param currentPageIndex 当前页码
+ * @param error 最近一次请求的错误，请求成功或重新请求时清空
+ * @param headMergeSerial 合并刷新完成的次数，每完成一次（成功或失败）加1
+ * @param headMergeCount 最近一次合并刷新新增的数量，-1表示失败
+ */
+data class PagingState(
+    val listVersion: Int = 0,
+    val items: List<Any>? = null,
+    val publishedVersion: Int = 0,
+    val recentChanges: List<ListChangeEvent> = emptyList(),
+    val footerState: EntityUIEvent.EventType? = null,
+    val headerState: EntityUIEvent.EventType? = null,
+    val isRefresh: Boolean = true,
+    val isLoading: Boolean = false,
+    val isLoadingPrevious: Boolean = false,
+    val currentPageIndex: Int = 0,
+    val error: Exception? = null,
+    val headMergeSerial: Int = 0,
+    val headMergeCount: Int = 0
+) {
+
+    /**
+     * 是否发生网络错误
+     */
+    val isNetworkError: Boolean
+        get() = error != null
+}
@@ -0,0 +1,31 @@
+package com.github.pageloadlib.viewmodel
+
+import kotlin.random.Random
+
+/**
+ * 自动重试的间隔：指数退避，一半固定一半随机，避免网络恢复时大量请求同时发出
+ */
+internal object RetryBackoff {
+
+    // 间隔最多翻倍的次数
+    private const val MAX_BACKOFF_SHIFT = 16
+
+    /**
+     * 计算第attempt次重试的间隔
+     * @param attempt 已经重试的次数，从0开始
+     * @param baseDelayMillis 初始间隔
+     * @param maxDelayMillis 最大间隔
+     * @return 位于[间隔的一半, 间隔]之间
+     */
+    fun delayMillis(attempt: Int, baseDelayMillis: Long, maxDelayMillis: Long, random: Random = Random): Long {
+        val shift = attempt.coerceIn(0, MAX_BACKOFF_SHIFT)
+        // 先比较再移位，避免初始间隔很大时溢出
+        val exponential = if (baseDelayMillis > (maxDelayMillis shr shift)) {
+            maxDelayMillis
+        } else {
+            baseDelayMillis shl shift
+        }.coerceAtLeast(0)
+        val half = exponential / 2
+        return half + random.nextLong(exponential - half + 1)
+    }
+}
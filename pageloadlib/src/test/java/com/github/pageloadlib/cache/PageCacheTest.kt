@@ -0,0 +1,84 @@
+package com.github.pageloadlib.cache
+
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.util.concurrent.Executor
+
+/**
+ * 单元测试中LruCache返回默认值，相当于内存缓存始终未命中，读取都走磁盘
+ */
+class PageCacheTest {
+
+    data class Page(val page: Int, val items: List<String>)
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    // 同步执行磁盘写入，写入完成后才返回
+    private val directExecutor = Executor { it.run() }
+
+    private fun newCache(): PageCache = PageCache(folder.root, directExecutor)
+
+    @Test
+    fun buildKey_ignoresParamOrder() {
+        val first = PageCache.buildKey("feed", linkedMapOf("page" to 1, "pageSize" to 20))
+        val second = PageCache.buildKey("feed", linkedMapOf("pageSize" to 20, "page" to 1))
+
+        assertEquals(first, second)
+    }
+
+    @Test
+    fun buildKey_differsByIdentityAndParams() {
+        val params = mapOf("page" to 1)
+
+        assertNotEquals(PageCache.buildKey("feed", params), PageCache.buildKey("news", params))
+        assertNotEquals(PageCache.buildKey("feed", params), PageCache.buildKey("feed", mapOf("page" to 2)))
+    }
+
+    @Test
+    fun put_withType_roundTripsThroughDisk() = runBlocking {
+        val cache = newCache()
+        val page = Page(1, listOf("a", "b"))
+
+        cache.put("key", page, Page::class.java)
+
+        assertEquals(page, cache.get<Page>("key", Page::class.java))
+    }
+
+    @Test
+    fun put_withoutType_skipsDisk() = runBlocking {
+        val cache = newCache()
+
+        cache.put("key", Page(1, listOf("a")), null)
+
+        assertNull(cache.get<Page>("key", Page::class.java))
+        assertTrue(folder.root.listFiles().isNullOrEmpty())
+    }
+
+    @Test
+    fun get_corruptedFile_returnsNullAndDeletesIt() = runBlocking {
+        val cache = newCache()
+        cache.put("key", Page(1, listOf("a")), Page::class.java)
+        val file = folder.root.listFiles()!!.single()
+        file.writeText("{not json")
+
+        assertNull(cache.get<Page>("key", Page::class.java))
+        assertTrue(!file.exists())
+    }
+
+    @Test
+    fun remove_deletesDiskEntry() = runBlocking {
+        val cache = newCache()
+        cache.put("key", Page(1, listOf("a")), Page::class.java)
+
+        cache.remove("key")
+
+        assertNull(cache.get<Page>("key", Page::class.java))
+    }
+}
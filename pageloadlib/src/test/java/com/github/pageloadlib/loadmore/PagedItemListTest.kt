@@ -0,0 +1,157 @@
+package com.github.pageloadlib.loadmore
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class PagedItemListTest {
+
+    private val header = Any()
+    private val footer = Any()
+
+    /**
+     * 按页追加数据，每页一个分块
+     */
+    private fun listOfChunks(vararg chunks: List<Any>, withHeader: Boolean = false): PagedItemList {
+        return PagedItemList(if (withHeader) header else null, footer).apply {
+            chunks.forEach { appendChunk(it) }
+        }
+    }
+
+    // 去掉footer后的数据
+    private fun PagedItemList.data(): List<Any> = toList().dropLast(1)
+
+    @Test
+    fun get_acrossChunkBoundaries_returnsItemsInOrder() {
+        val list = listOfChunks(listOf(0, 1, 2), listOf(3, 4), listOf(5))
+
+        assertEquals(7, list.size)
+        assertEquals(listOf<Any>(0, 1, 2, 3, 4, 5), list.data())
+        assertEquals(footer, list[6])
+    }
+
+    @Test
+    fun get_withHeader_shiftsDataByOne() {
+        val list = listOfChunks(listOf(0, 1), listOf(2), withHeader = true)
+
+        assertEquals(5, list.size)
+        assertEquals(header, list[0])
+        assertEquals(0, list[1])
+        assertEquals(2, list[3])
+        assertEquals(footer, list[4])
+    }
+
+    @Test
+    fun appendChunk_emptyPage_isIgnored() {
+        val list = listOfChunks(listOf(0), emptyList(), listOf(1))
+
+        assertEquals(listOf<Any>(0, 1), list.data())
+    }
+
+    @Test
+    fun appendChunk_beyondInitialCapacity_keepsLookupCorrect() {
+        val pages = (0 until 20).map { page -> listOf<Any>(page * 2, page * 2 + 1) }
+        val list = listOfChunks(*pages.toTypedArray())
+
+        assertEquals((0 until 40).toList(), list.data())
+    }
+
+    @Test
+    fun replace_sameSizeAcrossChunks_replacesInPlace() {
+        val list = listOfChunks(listOf(0, 1, 2), listOf(3, 4))
+
+        list.replace(2, 2, listOf("a", "b"))
+
+        assertEquals(listOf<Any>(0, 1, "a", "b", 4), list.data())
+    }
+
+    @Test
+    fun replace_shrinkAcrossChunks_mergesOnlyTouchedChunks() {
+        val list = listOfChunks(listOf(0, 1, 2), listOf(3, 4), listOf(5), listOf(6, 7))
+
+        list.replace(1, 3, listOf("x"))
+
+        assertEquals(listOf<Any>(0, "x", 4, 5, 6, 7), list.data())
+        assertEquals(7, list.size)
+    }
+
+    @Test
+    fun replace_growInsideChunk_shiftsLaterChunks() {
+        val list = listOfChunks(listOf(0, 1), listOf(2, 3))
+
+        list.replace(1, 0, listOf("a", "b"))
+
+        assertEquals(listOf<Any>(0, "a", "b", 1, 2, 3), list.data())
+        assertEquals(2, list[4])
+    }
+
+    @Test
+    fun replace_atStartWithoutRemoving_prependsChunk() {
+        val list = listOfChunks(listOf(2, 3), listOf(4), withHeader = true)
+
+        list.replace(0, 0, listOf(0, 1))
+
+        assertEquals(header, list[0])
+        assertEquals(listOf<Any>(header, 0, 1, 2, 3, 4, footer), list.toList())
+    }
+
+    @Test
+    fun replace_atEnd_appendsChunk() {
+        val list = listOfChunks(listOf(0, 1))
+
+        list.replace(2, 0, listOf(2))
+
+        assertEquals(listOf<Any>(0, 1, 2), list.data())
+    }
+
+    @Test
+    fun replace_removingWholeChunk_dropsEmptyChunk() {
+        val list = listOfChunks(listOf(0, 1), listOf(2, 3), listOf(4))
+
+        list.replace(2, 2, emptyList())
+
+        assertEquals(listOf<Any>(0, 1, 4), list.data())
+        // 空分块被移除后，后续的查找和替换仍然落在正确的分块
+        list.replace(2, 1, listOf("x", "y"))
+        assertEquals(listOf<Any>(0, 1, "x", "y"), list.data())
+    }
+
+    @Test
+    fun replace_removingEverything_leavesOnlyFooter() {
+        val list = listOfChunks(listOf(0, 1), listOf(2))
+
+        list.replace(0, 3, emptyList())
+
+        assertEquals(listOf(footer), list.toList())
+    }
+
+    @Test(expected = IndexOutOfBoundsException::class)
+    fun replace_pastDataSize_throws() {
+        listOfChunks(listOf(0, 1)).replace(1, 2, emptyList())
+    }
+
+    @Test(expected = IndexOutOfBoundsException::class)
+    fun get_pastFooter_throws() {
+        listOfChunks(listOf(0, 1))[3]
+    }
+
+    @Test
+    fun of_trimsHeaderAndFooter() {
+        val list = PagedItemList.of(listOf(header, 0, 1, footer), header, footer)
+
+        assertEquals(listOf<Any>(header, 0, 1, footer), list.toList())
+    }
+
+    @Test
+    fun of_withoutHeaderOrFooter_keepsAllItems() {
+        val list = PagedItemList.of(listOf(0, 1), header, footer)
+
+        assertEquals(listOf<Any>(header, 0, 1, footer), list.toList())
+    }
+
+    @Test
+    fun of_nullHeader_doesNotTrimFirstItem() {
+        val list = PagedItemList.of(listOf(0, 1, footer), null, footer)
+
+        assertEquals(listOf<Any>(0, 1, footer), list.toList())
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.pageloadlib.loadmore
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotEquals
+import org.junit.Test
+
+class StableIdRegistryTest {
+
+    data class Post(val id: Int, val title: String)
+
+    data class Comment(val id: Int)
+
+    private val keyOf: (Any) -> Any? = {
+        when (it) {
+            is Post -> it.id
+            is Comment -> it.id
+            else -> null
+        }
+    }
+
+    private fun StableIdRegistry.idOf(item: Any): Long = idOf(item, keyOf(item))
+
+    @Test
+    fun sameKey_differentInstances_shareId() {
+        val registry = StableIdRegistry()
+
+        val id = registry.idOf(Post(1, "old"))
+
+        assertEquals(id, registry.idOf(Post(1, "new")))
+        assertNotEquals(id, registry.idOf(Post(2, "old")))
+    }
+
+    @Test
+    fun sameKey_differentTypes_getDifferentIds() {
+        val registry = StableIdRegistry()
+
+        assertNotEquals(registry.idOf(Post(1, "a")), registry.idOf(Comment(1)))
+    }
+
+    @Test
+    fun unkeyedItems_useInstanceIdentity() {
+        val registry = StableIdRegistry()
+        val item = StringBuilder("a")
+
+        val id = registry.idOf(item, null)
+
+        assertEquals(id, registry.idOf(item, null))
+        assertNotEquals(id, registry.idOf(StringBuilder("a"), null))
+    }
+
+    @Test
+    fun prune_belowThreshold_keepsEverything() {
+        val registry = StableIdRegistry()
+        val id = registry.idOf(Post(1, "a"))
+        repeat(100) { registry.idOf(Post(it + 2, "a")) }
+
+        registry.pruneIfNeeded(emptyList(), keyOf)
+
+        assertEquals(id, registry.idOf(Post(1, "a")))
+    }
+
+    @Test
+    fun prune_keepsIdsOfCurrentItemsAndDropsOthers() {
+        val registry = StableIdRegistry()
+        val kept = Post(1, "a")
+        val keptUnkeyed = StringBuilder("b")
+        val keptId = registry.idOf(kept)
+        val keptUnkeyedId = registry.idOf(keptUnkeyed, null)
+        val droppedId = registry.idOf(Post(2, "a"))
+        repeat(300) { registry.idOf(Post(it + 3, "a")) }
+
+        registry.pruneIfNeeded(listOf(kept, keptUnkeyed), keyOf)
+
+        assertEquals(keptId, registry.idOf(Post(1, "changed")))
+        assertEquals(keptUnkeyedId, registry.idOf(keptUnkeyed, null))
+        // 被清理的key重新分配新的id，不会与仍在使用的id重复
+        val reassigned = registry.idOf(Post(2, "a"))
+        assertNotEquals(droppedId, reassigned)
+        assertNotEquals(keptId, reassigned)
+        assertNotEquals(keptUnkeyedId, reassigned)
+    }
+}
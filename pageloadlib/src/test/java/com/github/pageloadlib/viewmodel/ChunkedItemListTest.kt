@@ -0,0 +1,111 @@
+package com.github.pageloadlib.viewmodel
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import kotlin.random.Random
+
+class ChunkedItemListTest {
+
+    private fun range(from: Int, to: Int): List<Any> = (from until to).toList()
+
+    @Test
+    fun snapshot_isNotChangedByLaterEdits() {
+        val list = ChunkedItemList(range(0, 600))
+        val snapshot = list.snapshot()
+
+        list[10] = "x"
+        list.add(0, "head")
+        list.addAll(range(600, 620))
+        list.subList(300, 400).clear()
+
+        assertEquals(range(0, 600), snapshot)
+        assertEquals("head", list[0])
+        assertEquals("x", list[11])
+        assertEquals(521, list.size)
+    }
+
+    @Test
+    fun snapshot_seesEditsMadeBeforeIt() {
+        val list = ChunkedItemList(range(0, 10))
+        list.snapshot()
+        list[0] = "a"
+
+        assertEquals("a", list.snapshot()[0])
+    }
+
+    @Test(expected = UnsupportedOperationException::class)
+    @Suppress("UNCHECKED_CAST")
+    fun snapshot_isReadOnly() {
+        val snapshot = ChunkedItemList(range(0, 3)).snapshot()
+
+        (snapshot as MutableList<Any>).add(3)
+    }
+
+    @Test
+    fun addAll_largeInsertInsideChunk_keepsOrder() {
+        val list = ChunkedItemList(range(0, 200))
+
+        list.addAll(100, range(1000, 1300))
+
+        assertEquals(range(0, 100) + range(1000, 1300) + range(100, 200), list)
+    }
+
+    @Test
+    fun removeRange_acrossChunks_keepsOrder() {
+        val list = ChunkedItemList(range(0, 1000))
+
+        list.subList(100, 900).clear()
+
+        assertEquals(range(0, 100) + range(900, 1000), list)
+        assertEquals(950, list.removeAt(150))
+        assertEquals(199, list.size)
+    }
+
+    @Test
+    fun clear_thenAdd_startsOver() {
+        val list = ChunkedItemList(range(0, 300))
+        list.snapshot()
+
+        list.clear()
+        list.addAll(range(0, 2))
+
+        assertEquals(range(0, 2), list)
+    }
+
+    @Test
+    fun randomEdits_matchArrayListAndKeepEverySnapshot() {
+        val random = Random(42)
+        val list = ChunkedItemList()
+        val expected = ArrayList<Any>()
+        val snapshots = ArrayList<Pair<List<Any>, List<Any>>>()
+        var next = 0
+        repeat(2000) {
+            when (random.nextInt(5)) {
+                0, 1 -> {
+                    val index = random.nextInt(expected.size + 1)
+                    val items = List(random.nextInt(1, 40)) { next++ }
+                    list.addAll(index, items)
+                    expected.addAll(index, items)
+                }
+
+                2 -> if (expected.isNotEmpty()) {
+                    val from = random.nextInt(expected.size)
+                    val to = random.nextInt(from, minOf(expected.size, from + 60) + 1)
+                    list.subList(from, to).clear()
+                    expected.subList(from, to).clear()
+                }
+
+                3 -> if (expected.isNotEmpty()) {
+                    val index = random.nextInt(expected.size)
+                    list[index] = next
+                    expected[index] = next++
+                }
+
+                else -> snapshots.add(list.snapshot() to ArrayList(expected))
+            }
+        }
+
+        assertEquals(expected, list)
+        snapshots.forEach { (snapshot, copy) -> assertEquals(copy, snapshot) }
+    }
+}
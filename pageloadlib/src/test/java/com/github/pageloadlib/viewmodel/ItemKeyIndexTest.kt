@@ -0,0 +1,171 @@
+package com.github.pageloadlib.viewmodel
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class ItemKeyIndexTest {
+
+    private data class Item(val key: String)
+
+    // 调用keyOf的次数，用于确认只补齐需要的部分
+    private var keyLookups = 0
+
+    private val index = ItemKeyIndex { item ->
+        keyLookups++
+        (item as? Item)?.key
+    }
+
+    private val items = arrayListOf<Any>(Item("a"), Item("b"), "divider", Item("c"), Item("d"))
+
+    @Test
+    fun indexOf_fillsLazilyUpToTheKey() {
+        assertEquals(1, index.indexOf(items, "b"))
+        assertEquals(2, keyLookups)
+
+        keyLookups = 0
+        assertEquals(3, index.indexOf(items, "c"))
+        // 只补齐b之后的部分
+        assertEquals(2, keyLookups)
+    }
+
+    @Test
+    fun indexOf_cachedKey_checksOnlyThatPosition() {
+        index.indexOf(items, "d")
+        keyLookups = 0
+
+        assertEquals(0, index.indexOf(items, "a"))
+        assertEquals(1, keyLookups)
+    }
+
+    @Test
+    fun indexOf_unknownKey_returnsMinusOne() {
+        assertEquals(-1, index.indexOf(items, "x"))
+        assertEquals(-1, index.indexOf(items, "divider"))
+    }
+
+    @Test
+    fun onChanged_append_keepsExistingEntries() {
+        index.indexOf(items, "d")
+        items.add(Item("e"))
+        index.onChanged(5, 0, listOf(Item("e")))
+        keyLookups = 0
+
+        assertEquals(1, index.indexOf(items, "b"))
+        assertEquals(1, keyLookups)
+        assertEquals(5, index.indexOf(items, "e"))
+    }
+
+    @Test
+    fun onChanged_sizeChange_shiftsFollowingEntries() {
+        index.indexOf(items, "d")
+        items.removeAt(1)
+        index.onChanged(1, 1, emptyList())
+        keyLookups = 0
+
+        // 修改位置前后的记录都仍然可信，不需要重新补齐
+        assertEquals(0, index.indexOf(items, "a"))
+        assertEquals(2, index.indexOf(items, "c"))
+        assertEquals(3, index.indexOf(items, "d"))
+        assertEquals(3, keyLookups)
+    }
+
+    @Test
+    fun onChanged_sizeChange_dropsRemovedKey() {
+        index.indexOf(items, "d")
+        items.removeAt(1)
+        index.onChanged(1, 1, emptyList())
+        keyLookups = 0
+
+        assertEquals(-1, index.indexOf(items, "b"))
+        // 落在删除区间内的记录直接丢弃，不需要校验也不需要补齐
+        assertEquals(0, keyLookups)
+        assertEquals(3, index.entryCount)
+    }
+
+    @Test
+    fun onChanged_removeThenLookupInLargeList_doesNotRescan() {
+        val list = ArrayList<Any>((0 until 1000).map { Item("$it") })
+        index.indexOf(list, "999")
+        keyLookups = 0
+
+        repeat(10) {
+            list.removeAt(1)
+            index.onChanged(1, 1, emptyList())
+            assertEquals(list.size - 1, index.indexOf(list, "999"))
+        }
+        // 每次查找只校验记录所在的位置
+        assertEquals(10, keyLookups)
+    }
+
+    @Test
+    fun onChanged_insertAtHead_indexesOnlyInsertedItems() {
+        val list = ArrayList<Any>((0 until 1000).map { Item("$it") })
+        index.indexOf(list, "999")
+        keyLookups = 0
+
+        val head = listOf<Any>(Item("x"), Item("y"))
+        list.addAll(0, head)
+        index.onChanged(0, 0, head)
+
+        assertEquals(1, index.indexOf(list, "y"))
+        assertEquals(1001, index.indexOf(list, "999"))
+        // 记录两项新数据，再各校验一次
+        assertEquals(4, keyLookups)
+    }
+
+    @Test
+    fun onChanged_manyRemovals_entriesStayBounded() {
+        val list = ArrayList<Any>((0 until 200).map { Item("$it") })
+        index.indexOf(list, "199")
+
+        repeat(150) {
+            list.removeAt(0)
+            index.onChanged(0, 1, emptyList())
+        }
+
+        assertEquals(49, index.indexOf(list, "199"))
+        assertEquals(0, index.indexOf(list, "150"))
+        assertTrue(index.entryCount <= list.size + 64)
+    }
+
+    @Test
+    fun onChanged_sameSizeUpdate_updatesEntriesInPlace() {
+        index.indexOf(items, "d")
+        items[1] = Item("z")
+        index.onChanged(1, 1, listOf(Item("z")))
+        keyLookups = 0
+
+        assertEquals(1, index.indexOf(items, "z"))
+        assertEquals(1, keyLookups)
+    }
+
+    @Test
+    fun onChanged_sameSizeUpdate_staleEntryIsNotReturned() {
+        index.indexOf(items, "d")
+        items[1] = Item("z")
+        index.onChanged(1, 1, listOf(Item("z")))
+
+        assertEquals(-1, index.indexOf(items, "b"))
+    }
+
+    @Test
+    fun onChanged_sameSizeUpdatePastIndexedRange_isFilledLater() {
+        index.indexOf(items, "a")
+        items[3] = Item("z")
+        index.onChanged(3, 1, listOf(Item("z")))
+
+        assertEquals(3, index.indexOf(items, "z"))
+        assertEquals(-1, index.indexOf(items, "c"))
+    }
+
+    @Test
+    fun reset_rebuildsFromScratch() {
+        index.indexOf(items, "d")
+        items.reverse()
+        index.reset()
+
+        assertEquals(0, index.indexOf(items, "d"))
+        assertEquals(4, index.indexOf(items, "a"))
+    }
+}
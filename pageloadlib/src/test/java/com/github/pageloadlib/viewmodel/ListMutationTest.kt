@@ -0,0 +1,163 @@
+package com.github.pageloadlib.viewmodel
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class ListMutationTest {
+
+    private val items = (0 until 10).toMutableList<Any>()
+    private val mutation = ListMutation(items)
+
+    private fun ListMutation.Operation.range() = Triple(start, removeCount, items.toList())
+
+    @Test
+    fun remove_overlappingForward_coalescesIntoOneRange() {
+        mutation.remove(2, 2)
+        mutation.remove(2)
+
+        assertEquals(listOf(0, 1, 5, 6, 7, 8, 9), items)
+        assertEquals(1, mutation.operations.size)
+        assertEquals(Triple(2, 3, emptyList<Any>()), mutation.operations[0].range())
+        assertTrue(mutation.hasStructuralChange)
+    }
+
+    @Test
+    fun remove_adjacentBackward_extendsRangeStart() {
+        mutation.remove(5)
+        mutation.remove(4)
+
+        assertEquals(1, mutation.operations.size)
+        assertEquals(Triple(4, 2, emptyList<Any>()), mutation.operations[0].range())
+    }
+
+    @Test
+    fun remove_notAdjacent_addsNewRange() {
+        mutation.remove(1)
+        mutation.remove(5)
+
+        assertEquals(2, mutation.operations.size)
+    }
+
+    @Test
+    fun insert_adjacent_coalescesIntoOneRange() {
+        mutation.insert(3, listOf("a"))
+        mutation.insert(4, listOf("b"))
+
+        assertEquals(listOf(0, 1, 2, "a", "b", 3), items.take(6))
+        assertEquals(1, mutation.operations.size)
+        assertEquals(Triple(3, 0, listOf<Any>("a", "b")), mutation.operations[0].range())
+    }
+
+    @Test
+    fun remove_insideInsertedRange_dropsInsertedItems() {
+        mutation.insert(3, listOf("a", "b"))
+        mutation.remove(3)
+
+        assertEquals(1, mutation.operations.size)
+        assertEquals(Triple(3, 0, listOf<Any>("b")), mutation.operations[0].range())
+    }
+
+    @Test
+    fun removeIf_contiguousMatches_removesAsOneRange() {
+        val removed = mutation.removeIf { it as Int in 3..5 }
+
+        assertEquals(3, removed)
+        assertEquals(listOf(0, 1, 2, 6, 7, 8, 9), items)
+        assertEquals(1, mutation.operations.size)
+        assertEquals(Triple(3, 3, emptyList<Any>()), mutation.operations[0].range())
+    }
+
+    @Test
+    fun update_adjacentWithSamePayload_coalescesAndKeepsPayload() {
+        mutation.update(1, "x", "p")
+        mutation.update(2, "y", "p")
+        mutation.update(0, "w", "p")
+
+        assertEquals(1, mutation.operations.size)
+        val operation = mutation.operations[0]
+        assertEquals(Triple(0, 3, listOf<Any>("w", "x", "y")), operation.range())
+        assertTrue(operation.isUpdate)
+        assertEquals("p", operation.payload)
+        assertFalse(mutation.hasStructuralChange)
+    }
+
+    @Test
+    fun update_adjacentWithDifferentPayload_addsNewRange() {
+        mutation.update(1, "x", "p")
+        mutation.update(2, "y", "q")
+
+        assertEquals(2, mutation.operations.size)
+        assertEquals("q", mutation.operations[1].payload)
+    }
+
+    @Test
+    fun update_sameIndexWithDifferentPayload_dropsPayload() {
+        mutation.update(1, "x", "p")
+        mutation.update(1, "y", "q")
+
+        assertEquals(1, mutation.operations.size)
+        assertEquals(Triple(1, 1, listOf<Any>("y")), mutation.operations[0].range())
+        assertNull(mutation.operations[0].payload)
+    }
+
+    @Test
+    fun update_insideInsertedRange_staysStructural() {
+        mutation.insert(3, listOf("a"))
+        mutation.update(3, "b", "p")
+
+        assertEquals(1, mutation.operations.size)
+        val operation = mutation.operations[0]
+        assertEquals(Triple(3, 0, listOf<Any>("b")), operation.range())
+        assertFalse(operation.isUpdate)
+        assertNull(operation.payload)
+    }
+
+    @Test
+    fun move_splitsIntoRemoveAndInsert() {
+        mutation.move(0, 3)
+
+        assertEquals(listOf(1, 2, 3, 0, 4), items.take(5))
+        assertEquals(2, mutation.operations.size)
+        assertEquals(Triple(0, 1, emptyList<Any>()), mutation.operations[0].range())
+        assertEquals(Triple(3, 0, listOf<Any>(0)), mutation.operations[1].range())
+    }
+
+    @Test
+    fun move_sameIndex_doesNothing() {
+        mutation.move(2, 2)
+
+        assertTrue(mutation.operations.isEmpty())
+        assertFalse(mutation.hasStructuralChange)
+    }
+
+    @Test
+    fun insert_atEnd_isAllowed() {
+        mutation.add("last")
+
+        assertEquals("last", mutation[10])
+        assertEquals(11, mutation.size)
+    }
+
+    @Test(expected = IndexOutOfBoundsException::class)
+    fun insert_pastEnd_throws() {
+        mutation.insert(11, listOf("a"))
+    }
+
+    @Test(expected = IndexOutOfBoundsException::class)
+    fun remove_rangePastEnd_throws() {
+        mutation.remove(8, 5)
+    }
+
+    @Test(expected = IndexOutOfBoundsException::class)
+    fun update_atSize_throws() {
+        mutation.update(10, "x")
+    }
+
+    @Test(expected = IndexOutOfBoundsException::class)
+    fun move_toSize_throws() {
+        mutation.move(0, 10)
+    }
+}
@@ -0,0 +1,257 @@
+package com.github.pageloadlib.viewmodel
+
+import com.github.pageloadlib.net.ApiResponse
+import com.github.pageloadlib.responselistener.OnProcessResponseSuspendListener
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.asCoroutineDispatcher
+import kotlinx.coroutines.awaitCancellation
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOf
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.test.UnconfinedTestDispatcher
+import kotlinx.coroutines.test.resetMain
+import kotlinx.coroutines.test.setMain
+import kotlinx.coroutines.withTimeout
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.util.Collections
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+@OptIn(ExperimentalCoroutinesApi::class)
+class LoadMoreListFragmentViewModelTest {
+
+    // 每次发起请求的页码
+    private val requestedPages = ArrayList<Any?>()
+
+    // 不会返回的请求，保持请求进行中
+    private val pendingRequest: (Map<String, Any>) -> Flow<ApiResponse<String>> = { params ->
+        requestedPages.add(params[LoadMoreListFragmentViewModel.KEY_PAGE])
+        flow { awaitCancellation() }
+    }
+
+    private val listener = object : OnProcessResponseSuspendListener<String> {
+        override suspend fun obtainListForAdapter(
+            response: String?,
+            currentItems: List<Any>?,
+            isRefresh: Boolean
+        ): List<Any> = listOfNotNull(response)
+
+        override suspend fun isRequestSuccessButDataEmpty(response: String?): Boolean = response == null
+
+        override suspend fun isLoadMoreFinished(response: String?): Boolean = false
+    }
+
+    private lateinit var viewModel: LoadMoreListFragmentViewModel<String>
+
+    @Before
+    fun setUp() {
+        Dispatchers.setMain(UnconfinedTestDispatcher())
+        viewModel = LoadMoreListFragmentViewModel()
+        viewModel.currentPageIndex = 1
+    }
+
+    @After
+    fun tearDown() {
+        viewModel.cancelRequest()
+        Dispatchers.resetMain()
+    }
+
+    private fun requestPage(page: Int, isRefresh: Boolean) {
+        viewModel.requestData(
+            mapOf(LoadMoreListFragmentViewModel.KEY_PAGE to page),
+            pendingRequest,
+            isRefresh,
+            listener
+        )
+    }
+
+    @Test
+    fun loadMore_samePage_joinsInFlightRequest() {
+        requestPage(2, false)
+        requestPage(2, false)
+
+        assertEquals(listOf<Any?>(2), requestedPages)
+        assertEquals(1, viewModel.joinedRequestCount)
+        assertEquals(0, viewModel.preemptedRequestCount)
+        assertTrue(viewModel.isLoading)
+    }
+
+    @Test
+    fun loadMore_otherPage_replacesStaleRequest() {
+        requestPage(2, false)
+        requestPage(3, false)
+
+        assertEquals(listOf<Any?>(2, 3), requestedPages)
+        assertEquals(0, viewModel.joinedRequestCount)
+        assertEquals(1, viewModel.preemptedRequestCount)
+        assertTrue(viewModel.isLoading)
+    }
+
+    @Test
+    fun loadMore_whileRefreshing_isRejected() {
+        requestPage(1, true)
+        requestPage(2, false)
+
+        assertEquals(listOf<Any?>(1), requestedPages)
+        assertEquals(1, viewModel.rejectedRequestCount)
+        assertEquals(0, viewModel.joinedRequestCount)
+        assertTrue(viewModel.isRefresh)
+    }
+
+    @Test
+    fun refresh_preemptsInFlightLoadMore() {
+        requestPage(2, false)
+        requestPage(1, true)
+
+        assertEquals(listOf<Any?>(2, 1), requestedPages)
+        assertEquals(1, viewModel.preemptedRequestCount)
+        assertTrue(viewModel.isRefresh)
+    }
+
+    @Test
+    fun publishedItems_areNotChangedByLaterMutations() {
+        viewModel.updateItems(listOf("a", "b"))
+        val before = viewModel.pagingState.value
+
+        viewModel.mutateItems {
+            add("c")
+            update(0, "A")
+        }
+        val after = viewModel.pagingState.value
+
+        assertEquals(listOf("a", "b"), before.items)
+        assertEquals(listOf("A", "b", "c"), after.items)
+        assertTrue(before != after)
+    }
+
+    @Test
+    fun publishedItems_areReadOnly() {
+        viewModel.updateItems(listOf("a"))
+
+        val items = viewModel.pagingState.value.items
+        assertTrue(items !is ArrayList<*>)
+        assertEquals(1, items!!.size)
+    }
+
+    @Test
+    fun responseProcessing_runsOnProcessDispatcher() = runBlocking {
+        val executor = Executors.newSingleThreadExecutor { Thread(it, "process-test") }
+        val threads = Collections.synchronizedList(ArrayList<String>())
+        val recordingListener = object : OnProcessResponseSuspendListener<String> {
+            override suspend fun obtainListForAdapter(
+                response: String?,
+                currentItems: List<Any>?,
+                isRefresh: Boolean
+            ): List<Any> {
+                threads.add(Thread.currentThread().name)
+                return listOfNotNull(response)
+            }
+
+            override suspend fun isRequestSuccessButDataEmpty(response: String?): Boolean {
+                threads.add(Thread.currentThread().name)
+                return false
+            }
+
+            override suspend fun isLoadMoreFinished(response: String?): Boolean {
+                threads.add(Thread.currentThread().name)
+                return false
+            }
+        }
+        try {
+            viewModel.processDispatcher = executor.asCoroutineDispatcher()
+            viewModel.submitRestoredPage(
+                mapOf(LoadMoreListFragmentViewModel.KEY_PAGE to 1),
+                "data",
+                pendingRequest,
+                recordingListener
+            )
+
+            val state = withTimeout(5000) { viewModel.pagingState.first { it.items != null } }
+
+            assertEquals(listOf("data"), state.items)
+            assertTrue(threads.isNotEmpty())
+            assertTrue(threads.all { it == "process-test" })
+        } finally {
+            executor.shutdown()
+        }
+    }
+
+    @Test
+    fun headMerge_findsOverlapWithoutScanningWholeList() = runBlocking {
+        val keyLookups = AtomicInteger()
+        viewModel.itemKeyProvider = {
+            keyLookups.incrementAndGet()
+            it
+        }
+        viewModel.processDispatcher = Dispatchers.Unconfined
+        viewModel.updateItems((0 until 1000).map { it.toString() })
+        val splitListener = object : OnProcessResponseSuspendListener<String> {
+            override suspend fun obtainListForAdapter(
+                response: String?,
+                currentItems: List<Any>?,
+                isRefresh: Boolean
+            ): List<Any> = response?.split(",").orEmpty()
+
+            override suspend fun isRequestSuccessButDataEmpty(response: String?): Boolean = false
+
+            override suspend fun isLoadMoreFinished(response: String?): Boolean = false
+        }
+        keyLookups.set(0)
+
+        viewModel.requestHeadMerge(
+            mapOf(LoadMoreListFragmentViewModel.KEY_PAGE to 1),
+            { flowOf(ApiResponse.Success("n1,n2,0,1")) },
+            splitListener
+        )
+        val state = withTimeout(5000) { viewModel.pagingState.first { it.headMergeSerial == 1 } }
+
+        assertEquals(2, state.headMergeCount)
+        assertEquals(listOf<Any>("n1", "n2", "0", "1"), state.items!!.take(4))
+        assertEquals(1002, state.items!!.size)
+        // 只检查当前列表开头和新数据，与已加载的数量无关
+        assertTrue(keyLookups.get() < 20)
+    }
+
+    @Test
+    fun loadMore_listKeepsChangingWhileProcessing_retriesAreCapped() = runBlocking {
+        viewModel.processDispatcher = Dispatchers.Unconfined
+        viewModel.updateItems(listOf("a"))
+        var calls = 0
+        // 每次处理时列表都被修改，模拟处理期间不断插入上一页或推送更新
+        val changingListener = object : OnProcessResponseSuspendListener<String> {
+            override suspend fun obtainListForAdapter(
+                response: String?,
+                currentItems: List<Any>?,
+                isRefresh: Boolean
+            ): List<Any> {
+                calls++
+                val items = currentItems.orEmpty()
+                viewModel.updateItems(items + "edit$calls")
+                return items + listOfNotNull(response)
+            }
+
+            override suspend fun isRequestSuccessButDataEmpty(response: String?): Boolean = false
+
+            override suspend fun isLoadMoreFinished(response: String?): Boolean = false
+        }
+
+        viewModel.requestData(
+            mapOf(LoadMoreListFragmentViewModel.KEY_PAGE to 2),
+            { flowOf(ApiResponse.Success("p2")) },
+            false,
+            changingListener
+        )
+        val state = withTimeout(5000) { viewModel.pagingState.first { it.items?.lastOrNull() == "p2" } }
+
+        // 后台处理被打断两次后在主线程处理一次，不会无限重复调用业务代码
+        assertEquals(3, calls)
+        assertEquals(listOf<Any>("a", "edit1", "edit2", "p2"), state.items)
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.pageloadlib.viewmodel
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class PageLatencyTrackerTest {
+
+    @Test
+    fun p90_withoutSamples_isZero() {
+        assertEquals(0L, PageLatencyTracker(10).p90Millis)
+    }
+
+    @Test
+    fun p90_singleSample_isThatSample() {
+        val tracker = PageLatencyTracker(10)
+        tracker.record(120)
+
+        assertEquals(120L, tracker.p90Millis)
+    }
+
+    @Test
+    fun p90_usesNearestRank() {
+        val tracker = PageLatencyTracker(10)
+        // 乱序记录1..10
+        listOf(7L, 3L, 10L, 1L, 9L, 5L, 2L, 8L, 6L, 4L).forEach { tracker.record(it) }
+
+        assertEquals(9L, tracker.p90Millis)
+    }
+
+    @Test
+    fun p90_partiallyFilled_ignoresEmptySlots() {
+        val tracker = PageLatencyTracker(20)
+        listOf(100L, 200L, 300L).forEach { tracker.record(it) }
+
+        assertEquals(300L, tracker.p90Millis)
+    }
+
+    @Test
+    fun p90_dropsOldestSamplesWhenFull() {
+        val tracker = PageLatencyTracker(5)
+        repeat(5) { tracker.record(1000) }
+        repeat(5) { tracker.record(10) }
+
+        assertEquals(10L, tracker.p90Millis)
+    }
+
+    @Test
+    fun p90_singleOutlierInTwenty_isIgnored() {
+        val tracker = PageLatencyTracker(20)
+        repeat(19) { tracker.record(100) }
+        tracker.record(5000)
+
+        assertEquals(100L, tracker.p90Millis)
+    }
+}
@@ -0,0 +1,169 @@
+package com.github.pageloadlib.viewmodel
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class PageWindowTest {
+
+    /**
+     * 三页各10项：第1页[0, 10)，第2页[10, 20)，第3页[20, 30)
+     */
+    private fun threePages(maxResidentPages: Int): PageWindow {
+        return PageWindow(maxResidentPages).apply {
+            reset(1, 10)
+            addPage(2, 10, 10)
+            addPage(3, 20, 10)
+        }
+    }
+
+    private fun List<PageWindow.PageSlot>.pages(): List<Int> = map { it.pageIndex }
+
+    @Test
+    fun pickEvictions_withinLimit_evictsNothing() {
+        val window = threePages(3)
+
+        assertTrue(window.pickEvictions(0, 5).isEmpty())
+    }
+
+    @Test
+    fun pickEvictions_evictsFarthestFromVisibleRange() {
+        val window = threePages(2)
+
+        assertEquals(listOf(1), window.pickEvictions(25, 28).pages())
+    }
+
+    @Test
+    fun pickEvictions_visibleInMiddle_evictsBothSides() {
+        val window = threePages(1)
+
+        assertEquals(listOf(1, 3), window.pickEvictions(12, 18).pages())
+    }
+
+    @Test
+    fun pickEvictions_unknownVisibleRange_assumesListEnd() {
+        val window = threePages(2)
+
+        assertEquals(listOf(1), window.pickEvictions(-1, -1).pages())
+    }
+
+    @Test
+    fun pickEvictions_pageEndingRightBeforeVisible_isEvictable() {
+        val window = threePages(2)
+
+        // 第1页最后一项为9，可见区域从10开始，第1页不可见
+        assertEquals(listOf(1), window.pickEvictions(10, 19).pages())
+    }
+
+    @Test
+    fun pickEvictions_neverEvictsVisiblePages() {
+        val window = threePages(1)
+
+        // 可见区域横跨三页，超出上限也不能淘汰
+        assertTrue(window.pickEvictions(9, 20).isEmpty())
+    }
+
+    @Test
+    fun pickEvictions_skipsAlreadyEvictedPages() {
+        val window = threePages(2)
+        window.pageAt(0)!!.isEvicted = true
+
+        assertTrue(window.pickEvictions(25, 28).isEmpty())
+    }
+
+    @Test
+    fun pickEvictions_zeroLimit_evictsNothing() {
+        val window = threePages(2)
+        window.maxResidentPages = 0
+
+        assertTrue(window.pickEvictions(25, 28).isEmpty())
+    }
+
+    @Test
+    fun pageAt_findsSlotAtBoundaries() {
+        val window = threePages(3)
+
+        assertEquals(1, window.pageAt(9)!!.pageIndex)
+        assertEquals(2, window.pageAt(10)!!.pageIndex)
+        assertEquals(3, window.pageAt(29)!!.pageIndex)
+        assertNull(window.pageAt(30))
+    }
+
+    @Test
+    fun findEvictedNear_usesMargin() {
+        val window = threePages(3)
+        window.pageAt(0)!!.isEvicted = true
+
+        assertEquals(listOf(1), window.findEvictedNear(12, 15, 3).pages())
+        assertTrue(window.findEvictedNear(12, 15, 1).isEmpty())
+        assertTrue(window.findEvictedNear(-1, -1, 10).isEmpty())
+    }
+
+    @Test
+    fun onPageRestored_withDifferentCount_shiftsFollowingPages() {
+        val window = threePages(3)
+        val first = window.pageAt(0)!!
+        first.isEvicted = true
+
+        window.onPageRestored(first, 12)
+
+        assertFalse(first.isEvicted)
+        assertEquals(12, first.count)
+        // 第1页[0, 12)，第2页[12, 22)，第3页[22, 32)
+        assertEquals(2, window.pageAt(12)!!.pageIndex)
+        assertEquals(12, window.pageAt(12)!!.start)
+        assertEquals(3, window.pageAt(22)!!.pageIndex)
+        assertEquals(32, window.pageAt(31)!!.end)
+        assertNull(window.pageAt(32))
+    }
+
+    @Test
+    fun prependPage_shiftsExistingPages() {
+        val window = threePages(3)
+
+        window.prependPage(0, 5)
+
+        assertEquals(0, window.pageAt(0)!!.pageIndex)
+        assertEquals(1, window.pageAt(5)!!.pageIndex)
+        assertEquals(35, window.pageAt(34)!!.end)
+    }
+
+    @Test
+    fun shift_movesAllPages() {
+        val window = threePages(3)
+
+        window.shift(3)
+
+        assertNull(window.pageAt(2))
+        assertEquals(1, window.pageAt(3)!!.pageIndex)
+        assertEquals(2, window.pageAt(13)!!.pageIndex)
+        assertEquals(33, window.pageAt(32)!!.end)
+    }
+
+    @Test
+    fun shift_whenNotTracking_doesNothing() {
+        val window = threePages(3)
+        window.invalidate()
+
+        window.shift(3)
+        window.reset(1, 10)
+
+        assertEquals(0, window.pageAt(0)!!.start)
+    }
+
+    @Test
+    fun invalidate_stopsTrackingUntilReset() {
+        val window = threePages(1)
+
+        window.invalidate()
+        window.addPage(4, 30, 10)
+
+        assertNull(window.pageAt(0))
+        assertTrue(window.pickEvictions(0, 5).isEmpty())
+
+        window.reset(1, 10)
+        assertEquals(1, window.pageAt(0)!!.pageIndex)
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.pageloadlib.viewmodel
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import kotlin.random.Random
+
+class RetryBackoffTest {
+
+    private fun assertInRange(value: Long, min: Long, max: Long) {
+        assertTrue("$value not in [$min, $max]", value in min..max)
+    }
+
+    @Test
+    fun delay_doublesWithEachAttempt() {
+        val random = Random(42)
+        for (attempt in 0..4) {
+            val full = 1000L shl attempt
+            repeat(50) {
+                assertInRange(RetryBackoff.delayMillis(attempt, 1000, 60_000, random), full / 2, full)
+            }
+        }
+    }
+
+    @Test
+    fun delay_isCappedAtMax() {
+        val random = Random(7)
+        repeat(50) {
+            assertInRange(RetryBackoff.delayMillis(10, 1000, 30_000, random), 15_000, 30_000)
+        }
+    }
+
+    @Test
+    fun delay_largeAttemptOrBase_doesNotOverflow() {
+        val random = Random(1)
+        assertInRange(RetryBackoff.delayMillis(Int.MAX_VALUE, 1000, 30_000, random), 15_000, 30_000)
+        assertInRange(RetryBackoff.delayMillis(16, Long.MAX_VALUE / 2, 30_000, random), 15_000, 30_000)
+    }
+
+    @Test
+    fun delay_negativeAttempt_usesBaseDelay() {
+        assertInRange(RetryBackoff.delayMillis(-1, 1000, 30_000, Random(3)), 500, 1000)
+    }
+
+    @Test
+    fun delay_zeroBase_isZero() {
+        assertEquals(0L, RetryBackoff.delayMillis(3, 0, 30_000, Random(5)))
+    }
+
+    @Test
+    fun delay_isJittered() {
+        val random = Random(11)
+        val delays = (0 until 20).map { RetryBackoff.delayMillis(2, 1000, 30_000, random) }.toSet()
+
+        assertTrue(delays.size > 1)
+    }
+}